@@ -80,4 +80,8 @@
 -keep public class com.alipay.mobile.social.rxjava.support.RxActivity {
    public *;
 }
+# the padding fields are never read, but removing them would let the queue indexes share cache lines
+-keepclassmembers class com.alipay.mobile.social.rxjava.internal.util.PaddedAtomicLong {
+   long p1; long p2; long p3; long p4; long p5; long p6; long p7;
+}
 ## Rxjava end
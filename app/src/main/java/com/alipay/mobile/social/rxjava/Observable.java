@@ -621,6 +621,36 @@ public abstract class Observable<T> implements ObservableSource<T> {
         return RxJavaPlugins.onAssembly(new ObservableObserveOn<T>(this, scheduler, delayError, bufferSize));
     }
 
+    /**
+     * Modifies an ObservableSource to perform its emissions and notifications on a specified {@link Scheduler},
+     * asynchronously with either an unbounded buffer or a bounded, pre-sized one, and optionally delays onError
+     * notifications.
+     * <dl>
+     * <dt><b>Scheduler:</b></dt>
+     * <dd>You specify which {@link Scheduler} this operator will use</dd>
+     * </dl>
+     * <p>With {@code bounded} set, the elements waiting to be consumed are kept in a single ring of {@code bufferSize}
+     * slots (rounded up to a power of 2) allocated up front, which avoids linking new arrays when the consumer lags.
+     * If the producer gets {@code bufferSize} elements ahead, the upstream is cancelled and a
+     * {@link com.alipay.mobile.social.rxjava.exceptions.MissingBackpressureException MissingBackpressureException}
+     * is signalled; use it only where the upstream is known to stay within that distance.
+     *
+     * @param scheduler  the {@link Scheduler} to notify {@link Observer}s on
+     * @param delayError indicates if the onError notification may not cut ahead of onNext notification on the other side of the
+     *                   scheduling boundary. If true a sequence ending in onError will be replayed in the same order as was received
+     *                   from upstream
+     * @param bufferSize the size of the buffer: the capacity if bounded, the "island size" otherwise
+     * @param bounded    if true, the buffer is bounded to {@code bufferSize} elements
+     * @return the source ObservableSource modified so that its {@link Observer}s are notified on the specified
+     * {@link Scheduler}
+     * @see #observeOn(Scheduler, boolean, int)
+     */
+    public final Observable<T> observeOn(Scheduler scheduler, boolean delayError, int bufferSize, boolean bounded) {
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        ObjectHelper.verifyPositive(bufferSize, "bufferSize");
+        return RxJavaPlugins.onAssembly(new ObservableObserveOn<T>(this, scheduler, delayError, bufferSize, bounded));
+    }
+
     /**
      * Subscribes to an ObservableSource and provides a callback to handle the items it emits.
      * <p>
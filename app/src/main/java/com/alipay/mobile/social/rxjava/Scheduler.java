@@ -75,6 +75,19 @@ public abstract class Scheduler {
 
     }
 
+    /**
+     * Returns true if the calling thread is one of the threads this Scheduler runs its tasks on.
+     * <p>
+     * Operators such as {@code observeOn} use this to deliver a signal in place instead of
+     * hopping to a worker when they are already on the right thread and nothing is pending.
+     * <p>The default implementation returns false.
+     *
+     * @return true if the current thread belongs to this Scheduler
+     */
+    public boolean isCurrentThread() {
+        return false;
+    }
+
     /**
      * Schedules the given task on this scheduler non-delayed execution.
      * <p>
@@ -106,7 +119,7 @@ public abstract class Scheduler {
     public Disposable scheduleDirect(Runnable run, long delay, TimeUnit unit) {
         final Worker w = createWorker();
 
-        final Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+        final Runnable decoratedRun = RxJavaPlugins.onSchedule(run, delay, unit);
 
         DisposeTask task = new DisposeTask(decoratedRun, w);
 
@@ -136,7 +149,7 @@ public abstract class Scheduler {
     public Disposable schedulePeriodicallyDirect(Runnable run, long initialDelay, long period, TimeUnit unit) {
         final Worker w = createWorker();
 
-        final Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+        final Runnable decoratedRun = RxJavaPlugins.onSchedule(run, initialDelay, unit);
 
         PeriodicDirectTask periodicTask = new PeriodicDirectTask(decoratedRun, w);
 
@@ -201,7 +214,7 @@ public abstract class Scheduler {
 
             final SequentialDisposable sd = new SequentialDisposable(first);
 
-            final Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+            final Runnable decoratedRun = RxJavaPlugins.onSchedule(run, initialDelay, unit);
 
             final long periodInNanoseconds = unit.toNanos(period);
             final long firstNowNanoseconds = now(TimeUnit.NANOSECONDS);
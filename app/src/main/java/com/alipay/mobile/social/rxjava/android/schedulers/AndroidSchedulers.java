@@ -13,8 +13,11 @@
  */
 package com.alipay.mobile.social.rxjava.android.schedulers;
 
+import android.annotation.SuppressLint;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Message;
 
 import com.alipay.mobile.social.rxjava.Scheduler;
 
@@ -27,10 +30,86 @@ public final class AndroidSchedulers {
         static final Scheduler DEFAULT = new HandlerScheduler(new Handler(Looper.getMainLooper()));
     }
 
+    private static final class MainBatchedHolder {
+        static final Scheduler DEFAULT = new HandlerScheduler(new Handler(Looper.getMainLooper()), false, true);
+    }
+
+    private static final class MainAsyncHolder {
+        static final Scheduler DEFAULT = from(Looper.getMainLooper(), true);
+    }
+
+    private static final class AsyncHolder {
+        static final boolean SUPPORTED = asyncMessagesSupported(Build.VERSION.SDK_INT);
+    }
+
     /**
      * A {@link Scheduler} which executes actions on the Android main thread.
      */
     public static Scheduler mainThread() {
         return MainHolder.DEFAULT;
     }
+
+    /**
+     * A {@link Scheduler} which executes actions on the Android main thread; each of its workers
+     * posts a single message for all actions scheduled before the next looper turn and runs them
+     * in order within a time budget of {@link BatchingWorker#DEFAULT_BUDGET_MILLIS} per turn.
+     */
+    public static Scheduler mainThreadBatched() {
+        return MainBatchedHolder.DEFAULT;
+    }
+
+    /**
+     * A {@link Scheduler} which executes actions on the Android main thread using asynchronous
+     * messages, which are not held back while a sync barrier for the next frame is pending.
+     * Falls back to {@link #mainThread()} behavior where asynchronous messages are not supported.
+     */
+    public static Scheduler mainThreadAsync() {
+        return MainAsyncHolder.DEFAULT;
+    }
+
+    /**
+     * A {@link Scheduler} which executes actions on {@code looper}.
+     */
+    public static Scheduler from(Looper looper) {
+        return from(looper, false);
+    }
+
+    /**
+     * A {@link Scheduler} which executes actions on {@code looper}.
+     *
+     * @param async if true, the scheduler marks its messages as asynchronous so they bypass sync
+     *              barriers such as the one posted before a frame traversal; ignored where the
+     *              platform does not support asynchronous messages
+     */
+    public static Scheduler from(Looper looper, boolean async) {
+        if (looper == null) throw new NullPointerException("looper == null");
+        return new HandlerScheduler(new Handler(looper), async && AsyncHolder.SUPPORTED, false);
+    }
+
+    /**
+     * Returns whether {@link Message#setAsynchronous(boolean)} can be used on the given API level.
+     * It is public since API 22; on older levels the hidden method is probed and a missing method
+     * disables the feature.
+     *
+     * @param sdkInt the API level, {@link Build.VERSION#SDK_INT} on a device
+     * @return true if messages can be marked asynchronous
+     */
+    @SuppressLint("NewApi")
+    static boolean asyncMessagesSupported(int sdkInt) {
+        if (sdkInt >= 22) {
+            return true;
+        }
+        if (sdkInt < 16) {
+            return false;
+        }
+        Message message = Message.obtain();
+        try {
+            message.setAsynchronous(true);
+            return true;
+        } catch (NoSuchMethodError e) {
+            return false;
+        } finally {
+            message.recycle();
+        }
+    }
 }
@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.mobile.social.rxjava.android.schedulers;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.disposables.Disposables;
+import com.alipay.mobile.social.rxjava.internal.queue.MpscLinkedQueue;
+import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A Worker that coalesces all non-delayed tasks scheduled before the next looper turn into a
+ * single posted message and runs them in FIFO order within a per-turn time budget.
+ * <p>
+ * Tasks left over when the budget is used up are carried over to another turn, so input and
+ * frame callbacks get a chance to run in between. Delayed tasks are posted individually and run
+ * on their own turn.
+ * <p>
+ * Subclasses bind the worker to a message loop; {@link HandlerScheduler} uses a Handler.
+ */
+public abstract class BatchingWorker extends Scheduler.Worker implements Runnable {
+
+    /**
+     * The default time budget of a turn, in milliseconds.
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 5L;
+
+    final MpscLinkedQueue<BatchedTask> queue;
+
+    final AtomicBoolean posted;
+
+    final long budgetNanos;
+
+    volatile boolean disposed;
+
+    /**
+     * @param budget the time a single turn may spend running tasks, at least one task runs per turn
+     * @param unit   the unit of the budget
+     */
+    protected BatchingWorker(long budget, TimeUnit unit) {
+        this.queue = new MpscLinkedQueue<BatchedTask>();
+        this.posted = new AtomicBoolean();
+        this.budgetNanos = unit.toNanos(budget);
+    }
+
+    /**
+     * Posts this worker to run on the next turn of the message loop.
+     */
+    protected abstract void postTurn();
+
+    /**
+     * Posts the given task to run on the message loop after the delay.
+     *
+     * @param run         the task
+     * @param delayMillis the delay in milliseconds, positive
+     * @return the Disposable that removes the posted task
+     */
+    protected abstract Disposable postDelayed(Runnable run, long delayMillis);
+
+    /**
+     * Removes everything this worker has posted to the message loop.
+     */
+    protected abstract void removeAll();
+
+    @Override
+    public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+        if (run == null) throw new NullPointerException("run == null");
+        if (unit == null) throw new NullPointerException("unit == null");
+        if (disposed) {
+            return Disposables.disposed();
+        }
+
+        run = RxJavaPlugins.onSchedule(run, delay, unit);
+
+        long delayMillis = unit.toMillis(delay);
+        if (delayMillis > 0L) {
+            Disposable d = postDelayed(run, delayMillis);
+            if (disposed) {
+                d.dispose();
+                return Disposables.disposed();
+            }
+            return d;
+        }
+
+        BatchedTask task = new BatchedTask(run);
+        queue.offer(task);
+        if (!posted.get() && posted.compareAndSet(false, true)) {
+            postTurn();
+        }
+        if (disposed) {
+            task.dispose();
+            return Disposables.disposed();
+        }
+        return task;
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime() + budgetNanos;
+        MpscLinkedQueue<BatchedTask> q = queue;
+        for (;;) {
+            if (disposed) {
+                q.clear();
+                return;
+            }
+            BatchedTask task = q.poll();
+            if (task == null) {
+                posted.set(false);
+                // re-check: a producer may have seen posted == true just before it was cleared
+                if (q.isEmpty() || !posted.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            task.run();
+            if (System.nanoTime() - deadline >= 0L && !q.isEmpty()) {
+                // out of budget: yield the looper and continue on the next turn
+                postTurn();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        // the queue is only ever polled by a running turn, which clears it once it sees this flag
+        disposed = true;
+        removeAll();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    static final class BatchedTask implements Runnable, Disposable {
+        final Runnable delegate;
+
+        volatile boolean disposed;
+
+        BatchedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            if (!disposed) {
+                HandlerScheduler.ScheduledRunnable.execute(delegate);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
@@ -13,6 +13,7 @@
  */
 package com.alipay.mobile.social.rxjava.android.schedulers;
 
+import android.annotation.SuppressLint;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
@@ -27,8 +28,24 @@ import java.util.concurrent.TimeUnit;
 final class HandlerScheduler extends Scheduler {
     private final Handler handler;
 
+    private final boolean async;
+
+    private final boolean batching;
+
     HandlerScheduler(Handler handler) {
+        this(handler, false, false);
+    }
+
+    /**
+     * @param handler  the handler to post to
+     * @param async    if true, messages are marked asynchronous so they are not held back by sync barriers;
+     *                 callers must check {@link AndroidSchedulers#asyncMessagesSupported(int)} first
+     * @param batching if true, workers coalesce the tasks scheduled before the next looper turn into one message
+     */
+    HandlerScheduler(Handler handler, boolean async, boolean batching) {
         this.handler = handler;
+        this.async = async;
+        this.batching = batching;
     }
 
     @Override
@@ -36,28 +53,48 @@ final class HandlerScheduler extends Scheduler {
         if (run == null) throw new NullPointerException("run == null");
         if (unit == null) throw new NullPointerException("unit == null");
 
-        run = RxJavaPlugins.onSchedule(run);
-        ScheduledRunnable scheduled = new ScheduledRunnable(handler, run);
-        if (delay == 0 && Looper.getMainLooper() == Looper.myLooper()) {
-            scheduled.run();
-            return scheduled;
+        run = RxJavaPlugins.onSchedule(run, delay, unit);
+        if (delay == 0 && isCurrentThread()) {
+            ScheduledRunnable.execute(run);
+            return Disposables.disposed();
         }
-        handler.postDelayed(scheduled, Math.max(0L, unit.toMillis(delay)));
+        ScheduledRunnable scheduled = new ScheduledRunnable(handler, run);
+        Message message = Message.obtain(handler, scheduled);
+        markAsync(message, async);
+        handler.sendMessageDelayed(message, Math.max(0L, unit.toMillis(delay)));
         return scheduled;
     }
 
     @Override
     public Worker createWorker() {
-        return new HandlerWorker(handler);
+        if (batching) {
+            return new HandlerBatchingWorker(handler, async);
+        }
+        return new HandlerWorker(handler, async);
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        return handler.getLooper() == Looper.myLooper();
+    }
+
+    @SuppressLint("NewApi") // Message.setAsynchronous is public since API 22, callers check support
+    static void markAsync(Message message, boolean async) {
+        if (async) {
+            message.setAsynchronous(true);
+        }
     }
 
     private static final class HandlerWorker extends Worker {
         private final Handler handler;
 
+        private final boolean async;
+
         private volatile boolean disposed;
 
-        HandlerWorker(Handler handler) {
+        HandlerWorker(Handler handler, boolean async) {
             this.handler = handler;
+            this.async = async;
         }
 
         @Override
@@ -68,19 +105,19 @@ final class HandlerScheduler extends Scheduler {
                 return Disposables.disposed();
             }
 
-            run = RxJavaPlugins.onSchedule(run);
-
+            run = RxJavaPlugins.onSchedule(run, delay, unit);
 
-            ScheduledRunnable scheduled = new ScheduledRunnable(handler, run);
-            if (delay == 0 && Looper.getMainLooper() == Looper.myLooper()) {
-                //如果已在主线程，则直接执行
-                scheduled.run();
-                return scheduled;
+            if (delay == 0 && handler.getLooper() == Looper.myLooper()) {
+                //如果已在Handler所在线程，则直接执行
+                ScheduledRunnable.execute(run);
+                return Disposables.disposed();
             }
 
+            ScheduledRunnable scheduled = new ScheduledRunnable(handler, run);
 
             Message message = Message.obtain(handler, scheduled);
             message.obj = this; // Used as token for batch disposal of this worker's runnables.
+            markAsync(message, async);
 
             handler.sendMessageDelayed(message, Math.max(0L, unit.toMillis(delay)));
 
@@ -105,7 +142,42 @@ final class HandlerScheduler extends Scheduler {
         }
     }
 
-    private static final class ScheduledRunnable implements Runnable, Disposable {
+    private static final class HandlerBatchingWorker extends BatchingWorker {
+        private final Handler handler;
+
+        private final boolean async;
+
+        HandlerBatchingWorker(Handler handler, boolean async) {
+            super(DEFAULT_BUDGET_MILLIS, TimeUnit.MILLISECONDS);
+            this.handler = handler;
+            this.async = async;
+        }
+
+        @Override
+        protected void postTurn() {
+            Message message = Message.obtain(handler, this);
+            message.obj = this; // Used as token for batch disposal of this worker's runnables.
+            markAsync(message, async);
+            handler.sendMessage(message);
+        }
+
+        @Override
+        protected Disposable postDelayed(Runnable run, long delayMillis) {
+            ScheduledRunnable scheduled = new ScheduledRunnable(handler, run);
+            Message message = Message.obtain(handler, scheduled);
+            message.obj = this;
+            markAsync(message, async);
+            handler.sendMessageDelayed(message, delayMillis);
+            return scheduled;
+        }
+
+        @Override
+        protected void removeAll() {
+            handler.removeCallbacksAndMessages(this /* token */);
+        }
+    }
+
+    static final class ScheduledRunnable implements Runnable, Disposable {
         private final Handler handler;
         private final Runnable delegate;
 
@@ -118,6 +190,10 @@ final class HandlerScheduler extends Scheduler {
 
         @Override
         public void run() {
+            execute(delegate);
+        }
+
+        static void execute(Runnable delegate) {
             try {
                 delegate.run();
             } catch (Throwable t) {
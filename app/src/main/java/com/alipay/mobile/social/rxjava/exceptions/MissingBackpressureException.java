@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.exceptions;
+
+/**
+ * Indicates that a bounded buffer between a producer and a slower consumer overflowed.
+ */
+public final class MissingBackpressureException extends RuntimeException {
+
+    private static final long serialVersionUID = 8517344746016032542L;
+
+    /**
+     * Constructs a MissingBackpressureException without message or cause.
+     */
+    public MissingBackpressureException() {
+        // no message
+    }
+
+    /**
+     * Constructs a MissingBackpressureException with the given message but no cause.
+     *
+     * @param message the error message
+     */
+    public MissingBackpressureException(String message) {
+        super(message);
+    }
+}
@@ -18,6 +18,8 @@ import com.alipay.mobile.social.rxjava.Observer;
 import com.alipay.mobile.social.rxjava.Scheduler;
 import com.alipay.mobile.social.rxjava.disposables.Disposable;
 import com.alipay.mobile.social.rxjava.internal.disposables.DisposableHelper;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ImmediateScheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.TrampolineScheduler;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -42,9 +44,15 @@ public final class ObservableInterval extends Observable<Long> {
 
         Scheduler sch = scheduler;
 
-
-        Disposable d = sch.schedulePeriodicallyDirect(is, initialDelay, period, unit);
-        is.setResource(d);
+        if (sch instanceof TrampolineScheduler || sch instanceof ImmediateScheduler) {
+            // these run the periodic task before returning, so the worker has to be set up front
+            Scheduler.Worker worker = sch.createWorker();
+            is.setResource(worker);
+            worker.schedulePeriodically(is, initialDelay, period, unit);
+        } else {
+            Disposable d = sch.schedulePeriodicallyDirect(is, initialDelay, period, unit);
+            is.setResource(d);
+        }
 
     }
 
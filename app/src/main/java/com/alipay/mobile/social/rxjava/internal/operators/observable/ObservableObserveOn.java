@@ -19,31 +19,47 @@ import com.alipay.mobile.social.rxjava.Scheduler;
 import com.alipay.mobile.social.rxjava.annotations.Nullable;
 import com.alipay.mobile.social.rxjava.disposables.Disposable;
 import com.alipay.mobile.social.rxjava.exceptions.Exceptions;
+import com.alipay.mobile.social.rxjava.exceptions.MissingBackpressureException;
 import com.alipay.mobile.social.rxjava.internal.disposables.DisposableHelper;
 import com.alipay.mobile.social.rxjava.internal.fuseable.QueueDisposable;
 import com.alipay.mobile.social.rxjava.internal.fuseable.SimpleQueue;
 import com.alipay.mobile.social.rxjava.internal.observers.BasicIntQueueDisposable;
+import com.alipay.mobile.social.rxjava.internal.queue.SpscArrayQueue;
 import com.alipay.mobile.social.rxjava.internal.queue.SpscLinkedArrayQueue;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ImmediateScheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.TrampolineScheduler;
 import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
 
 public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream<T, T> {
     final Scheduler scheduler;
     final boolean delayError;
     final int bufferSize;
+    final boolean bounded;
 
     public ObservableObserveOn(ObservableSource<T> source, Scheduler scheduler, boolean delayError, int bufferSize) {
+        this(source, scheduler, delayError, bufferSize, false);
+    }
+
+    public ObservableObserveOn(ObservableSource<T> source, Scheduler scheduler, boolean delayError, int bufferSize,
+                               boolean bounded) {
         super(source);
         this.scheduler = scheduler;
         this.delayError = delayError;
         this.bufferSize = bufferSize;
+        this.bounded = bounded;
     }
 
     @Override
     protected void subscribeActual(Observer<? super T> observer) {
+        if (scheduler instanceof TrampolineScheduler || scheduler instanceof ImmediateScheduler) {
+            // same-thread schedulers: nothing to hop to
+            source.subscribe(observer);
+            return;
+        }
 
         Scheduler.Worker w = scheduler.createWorker();
 
-        source.subscribe(new ObserveOnObserver<T>(observer, w, delayError, bufferSize));
+        source.subscribe(new ObserveOnObserver<T>(observer, scheduler, w, delayError, bufferSize, bounded));
 
     }
 
@@ -52,9 +68,11 @@ public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream
 
         private static final long serialVersionUID = 6576896619930983584L;
         final Observer<? super T> actual;
+        final Scheduler scheduler;
         final Scheduler.Worker worker;
         final boolean delayError;
         final int bufferSize;
+        final boolean bounded;
 
         SimpleQueue<T> queue;
 
@@ -69,11 +87,14 @@ public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream
 
         boolean outputFused;
 
-        ObserveOnObserver(Observer<? super T> actual, Scheduler.Worker worker, boolean delayError, int bufferSize) {
+        ObserveOnObserver(Observer<? super T> actual, Scheduler scheduler, Scheduler.Worker worker,
+                          boolean delayError, int bufferSize, boolean bounded) {
             this.actual = actual;
+            this.scheduler = scheduler;
             this.worker = worker;
             this.delayError = delayError;
             this.bufferSize = bufferSize;
+            this.bounded = bounded;
         }
 
         @Override
@@ -102,7 +123,7 @@ public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream
                     }
                 }
 
-                queue = new SpscLinkedArrayQueue<T>(bufferSize);
+                queue = bounded ? new SpscArrayQueue<T>(bufferSize) : new SpscLinkedArrayQueue<T>(bufferSize);
                 actual.onSubscribe(this);
 
             }
@@ -115,11 +136,51 @@ public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream
             }
 
             if (sourceMode != QueueDisposable.ASYNC) {
-                queue.offer(t);
+                if (tryEmitInPlace(t)) {
+                    return;
+                }
+                if (!queue.offer(t)) {
+                    overflow();
+                    return;
+                }
             }
             schedule();
         }
 
+        /**
+         * The bounded queue is full: the consumer can't keep up, so the upstream is cancelled and
+         * the error is delivered after the values already queued (or before them, unless delayError).
+         */
+        void overflow() {
+            s.dispose();
+            onError(new MissingBackpressureException("Queue is full?!"));
+        }
+
+        /**
+         * Emits the value directly if the producer already runs on the target scheduler's thread
+         * and no earlier value is queued or being drained; ordering is kept by owning the drain
+         * loop (wip) for the duration of the emission.
+         */
+        boolean tryEmitInPlace(T t) {
+            if (outputFused || cancelled || get() != 0 || !scheduler.isCurrentThread() || !compareAndSet(0, 1)) {
+                return false;
+            }
+            boolean full = false;
+            if (queue.isEmpty()) {
+                actual.onNext(t);
+            } else {
+                full = !queue.offer(t);
+            }
+            if (decrementAndGet() != 0) {
+                // signals arrived while emitting, let the worker drain them
+                worker.schedule(this);
+            }
+            if (full) {
+                overflow();
+            }
+            return true;
+        }
+
         @Override
         public void onError(Throwable t) {
             if (done) {
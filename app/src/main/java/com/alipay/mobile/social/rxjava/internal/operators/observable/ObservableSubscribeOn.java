@@ -18,6 +18,8 @@ import com.alipay.mobile.social.rxjava.Observer;
 import com.alipay.mobile.social.rxjava.Scheduler;
 import com.alipay.mobile.social.rxjava.disposables.Disposable;
 import com.alipay.mobile.social.rxjava.internal.disposables.DisposableHelper;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ImmediateScheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.TrampolineScheduler;
 
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -31,6 +33,11 @@ public final class ObservableSubscribeOn<T> extends AbstractObservableWithUpstre
 
     @Override
     public void subscribeActual(final Observer<? super T> s) {
+        if (scheduler instanceof TrampolineScheduler || scheduler instanceof ImmediateScheduler) {
+            // both run scheduleDirect() right away on the calling thread
+            source.subscribe(s);
+            return;
+        }
         final SubscribeOnObserver<T> parent = new SubscribeOnObserver<T>(s);
 
         s.onSubscribe(parent);
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+/*
+ * The code was inspired by the JCTools MpscUnboundedXaddArrayQueue:
+ * https://github.com/JCTools/JCTools/blob/master/jctools-core/src/main/java/org/jctools/queues
+ */
+
+package com.alipay.mobile.social.rxjava.internal.queue;
+
+import com.alipay.mobile.social.rxjava.annotations.Nullable;
+import com.alipay.mobile.social.rxjava.internal.fuseable.SimplePlainQueue;
+import com.alipay.mobile.social.rxjava.internal.util.PaddedAtomicLong;
+import com.alipay.mobile.social.rxjava.internal.util.Pow2;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A multi-producer single consumer unbounded queue storing its elements in linked fixed-size array chunks.
+ * <p>
+ * Producers claim a slot with a single atomic increment and write into it; only the producer needing a
+ * new chunk allocates one, so offers are allocation-free except for one array per {@code chunkSize} elements.
+ * The first chunk is only allocated by the first offer, so a queue that never gets used stays small.
+ * The producer and consumer indexes are padded so the two sides don't false-share their cache lines.
+ * <p>
+ * The queue itself holds the first chunk until the consumer picks it up, and a marker afterwards.
+ *
+ * @param <T> the contained value type
+ */
+public final class MpscChunkedQueue<T> extends AtomicReference<MpscChunkedQueue.Chunk<T>> implements SimplePlainQueue<T> {
+
+    private static final long serialVersionUID = -1826524926453829284L;
+
+    /** The default number of elements per chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 128;
+
+    /** Replaces the first chunk once the consumer took it over, so it can't be created twice. */
+    static final Chunk<Object> DEAD = new Chunk<Object>(-1L, 0);
+
+    final int mask;
+
+    final int shift;
+
+    final AtomicLong producerIndex;
+
+    /** A recent chunk of the producers, a hint for where to start looking for a slot's chunk; null until the first offer. */
+    volatile Chunk<T> producerChunk;
+
+    final AtomicLong consumerIndex;
+
+    /**
+     * The chunk the consumer reads from, null until it reads the first chunk; producers fall back
+     * to it when they lag behind the hint.
+     */
+    volatile Chunk<T> consumerChunk;
+
+    public MpscChunkedQueue() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize the number of elements per chunk, rounded up to a power of 2 (and at least 8)
+     */
+    public MpscChunkedQueue(int chunkSize) {
+        int size = Pow2.roundToPowerOfTwo(Math.max(8, chunkSize));
+        this.mask = size - 1;
+        this.shift = Integer.numberOfTrailingZeros(size);
+        this.producerIndex = new PaddedAtomicLong();
+        this.consumerIndex = new PaddedAtomicLong();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Offer is allowed from multiple threads.
+     */
+    @Override
+    public boolean offer(final T e) {
+        if (null == e) {
+            throw new NullPointerException("Null is not a valid element");
+        }
+        long index = producerIndex.getAndIncrement();
+        long chunkIndex = index >> shift;
+        Chunk<T> hint = producerChunk;
+        Chunk<T> c = hint;
+        if (c == null || c.index > chunkIndex) {
+            // the hint moved past this slot's chunk, which the consumer can't have left yet
+            c = consumerChunk;
+            if (c == null) {
+                c = firstChunk();
+            }
+        }
+        while (c.index < chunkIndex) {
+            Chunk<T> next = c.next.get();
+            if (next == null) {
+                Chunk<T> created = new Chunk<T>(c.index + 1, mask + 1);
+                next = c.next.compareAndSet(null, created) ? created : c.next.get();
+            }
+            c = next;
+        }
+        hint = producerChunk;
+        if (hint == null || hint.index < chunkIndex) {
+            producerChunk = c;
+        }
+        c.lazySet((int) index & mask, e);
+        return true;
+    }
+
+    Chunk<T> firstChunk() {
+        Chunk<T> c = get();
+        if (c == null) {
+            Chunk<T> created = new Chunk<T>(0L, mask + 1);
+            c = compareAndSet(null, created) ? created : get();
+        }
+        if (c == dead()) {
+            // the consumer took the first chunk over after this producer looked
+            c = consumerChunk;
+        }
+        return c;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Chunk<T> dead() {
+        return (Chunk<T>) (Chunk<?>) DEAD;
+    }
+
+    @Override
+    public boolean offer(T v1, T v2) {
+        offer(v1);
+        offer(v2);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only returns null if the queue is empty; an element whose slot is claimed but not yet written is
+     * waited for.
+     */
+    @Nullable
+    @Override
+    public T poll() {
+        long index = consumerIndex.get();
+        Chunk<T> c = consumerChunk;
+        if (c == null) {
+            if (producerIndex.get() == index) {
+                return null;
+            }
+            while ((c = get()) == null) {
+                // the first producer is still creating the first chunk
+            }
+            consumerChunk = c;
+            lazySet(MpscChunkedQueue.<T>dead());
+        }
+        if (c.index != index >> shift) {
+            if (producerIndex.get() == index) {
+                return null;
+            }
+            Chunk<T> next;
+            while ((next = c.next.get()) == null) {
+                // the producer claiming the chunk's first slot is still linking it
+            }
+            c = next;
+            consumerChunk = next;
+        }
+        int offset = (int) index & mask;
+        T e = c.get(offset);
+        if (e == null) {
+            if (producerIndex.get() == index) {
+                return null;
+            }
+            while ((e = c.get(offset)) == null) {
+                // the producer that claimed the slot is still writing it
+            }
+        }
+        c.lazySet(offset, null);
+        consumerIndex.lazySet(index + 1);
+        return e;
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null && !isEmpty()) {
+            // drop everything
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return consumerIndex.get() == producerIndex.get();
+    }
+
+    static final class Chunk<T> extends AtomicReferenceArray<T> {
+
+        private static final long serialVersionUID = -3919355364578437046L;
+
+        /** The position of this chunk in the queue: it holds the indexes [index * size, (index + 1) * size). */
+        final long index;
+
+        final AtomicReference<Chunk<T>> next;
+
+        Chunk(long index, int size) {
+            super(size);
+            this.index = index;
+            this.next = new AtomicReference<Chunk<T>>();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * The code was inspired by the similarly named JCTools class:
+ * https://github.com/JCTools/JCTools/blob/master/jctools-core/src/main/java/org/jctools/queues/atomic
+ */
+
+package com.alipay.mobile.social.rxjava.internal.queue;
+
+import com.alipay.mobile.social.rxjava.annotations.Nullable;
+import com.alipay.mobile.social.rxjava.internal.fuseable.SimplePlainQueue;
+import com.alipay.mobile.social.rxjava.internal.util.PaddedAtomicLong;
+import com.alipay.mobile.social.rxjava.internal.util.Pow2;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A single-producer single-consumer queue backed by one pre-sized array; {@link #offer(Object)}
+ * returns false once it's full instead of allocating more room.
+ * <p>
+ * The producer only re-reads the slots ahead of it every {@code lookAheadStep} offers, and the two
+ * indexes live in separately padded objects so the producer and consumer don't false-share.
+ *
+ * @param <E> the element type of the queue
+ */
+public final class SpscArrayQueue<E> extends AtomicReferenceArray<E> implements SimplePlainQueue<E> {
+    private static final long serialVersionUID = -1296597691183856449L;
+    private static final int MAX_LOOK_AHEAD_STEP = Integer.getInteger("jctools.spsc.max.lookahead.step", 4096);
+    final int mask;
+    final PaddedAtomicLong producerIndex;
+    long producerLookAhead;
+    final PaddedAtomicLong consumerIndex;
+    final int lookAheadStep;
+
+    /**
+     * @param capacity the minimum capacity, rounded up to a power of 2 (and at least 8)
+     */
+    public SpscArrayQueue(int capacity) {
+        super(Pow2.roundToPowerOfTwo(Math.max(8, capacity)));
+        this.mask = length() - 1;
+        this.producerIndex = new PaddedAtomicLong();
+        this.consumerIndex = new PaddedAtomicLong();
+        lookAheadStep = Math.min(length() / 4, MAX_LOOK_AHEAD_STEP);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (null == e) {
+            throw new NullPointerException("Null is not a valid element");
+        }
+        // local load of field to avoid repeated loads after volatile reads
+        final int mask = this.mask;
+        final long index = producerIndex.get();
+        final int offset = calcElementOffset(index, mask);
+        if (index >= producerLookAhead) {
+            int step = lookAheadStep;
+            if (null == lvElement(calcElementOffset(index + step, mask))) { // LoadLoad
+                producerLookAhead = index + step;
+            } else if (null != lvElement(offset)) {
+                return false;
+            }
+        }
+        soElement(offset, e); // StoreStore
+        soProducerIndex(index + 1); // ordered store -> atomic and ordered for size()
+        return true;
+    }
+
+    @Override
+    public boolean offer(E v1, E v2) {
+        if (null == v1 || null == v2) {
+            throw new NullPointerException("Null is not a valid element");
+        }
+        final int mask = this.mask;
+        final long index = producerIndex.get();
+        // the consumer frees slots in order, so the second slot being free implies the first is too
+        if (null != lvElement(calcElementOffset(index + 1, mask))) {
+            return false;
+        }
+        soElement(calcElementOffset(index + 1, mask), v2);
+        soElement(calcElementOffset(index, mask), v1); // StoreStore, v2 is visible before v1
+        soProducerIndex(index + 2);
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public E poll() {
+        final long index = consumerIndex.get();
+        final int offset = calcElementOffset(index);
+        // local load of field to avoid repeated loads after volatile reads
+        final E e = lvElement(offset); // LoadLoad
+        if (null == e) {
+            return null;
+        }
+        soConsumerIndex(index + 1); // ordered store -> atomic and ordered for size()
+        soElement(offset, null); // StoreStore
+        return e;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex.get() == consumerIndex.get();
+    }
+
+    @Override
+    public void clear() {
+        // we have to test isEmpty because of the weaker poll() guarantee
+        while (poll() != null || !isEmpty()) {
+            // ignore
+        }
+    }
+
+    /**
+     * @return the number of slots, a power of 2
+     */
+    public int capacity() {
+        return length();
+    }
+
+    void soProducerIndex(long newIndex) {
+        producerIndex.lazySet(newIndex);
+    }
+
+    void soConsumerIndex(long newIndex) {
+        consumerIndex.lazySet(newIndex);
+    }
+
+    int calcElementOffset(long index, int mask) {
+        return (int) index & mask;
+    }
+
+    int calcElementOffset(long index) {
+        return (int) index & mask;
+    }
+
+    void soElement(int offset, E value) {
+        lazySet(offset, value);
+    }
+
+    E lvElement(int offset) {
+        return get(offset);
+    }
+}
@@ -20,6 +20,7 @@ package com.alipay.mobile.social.rxjava.internal.queue;
 
 import com.alipay.mobile.social.rxjava.annotations.Nullable;
 import com.alipay.mobile.social.rxjava.internal.fuseable.SimplePlainQueue;
+import com.alipay.mobile.social.rxjava.internal.util.PaddedAtomicLong;
 import com.alipay.mobile.social.rxjava.internal.util.Pow2;
 
 import java.util.concurrent.atomic.AtomicLong;
@@ -28,12 +29,14 @@ import java.util.concurrent.atomic.AtomicReferenceArray;
 /**
  * A single-producer single-consumer array-backed queue which can allocate new arrays in case the consumer is slower
  * than the producer.
+ * <p>
+ * The producer and consumer indexes are padded so the two threads don't false-share their cache lines.
  *
  * @param <T> the contained value type
  */
 public final class SpscLinkedArrayQueue<T> implements SimplePlainQueue<T> {
     static final int MAX_LOOK_AHEAD_STEP = Integer.getInteger("jctools.spsc.max.lookahead.step", 4096);
-    final AtomicLong producerIndex = new AtomicLong();
+    final AtomicLong producerIndex = new PaddedAtomicLong();
 
     int producerLookAheadStep;
     long producerLookAhead;
@@ -43,7 +46,7 @@ public final class SpscLinkedArrayQueue<T> implements SimplePlainQueue<T> {
     AtomicReferenceArray<Object> producerBuffer;
     final int consumerMask;
     AtomicReferenceArray<Object> consumerBuffer;
-    final AtomicLong consumerIndex = new AtomicLong();
+    final AtomicLong consumerIndex = new PaddedAtomicLong();
 
     private static final Object HAS_NEXT = new Object();
 
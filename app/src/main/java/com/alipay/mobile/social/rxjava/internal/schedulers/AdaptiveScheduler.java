@@ -0,0 +1,484 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.internal.schedulers;
+
+import android.os.Debug;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.functions.Function;
+import com.alipay.mobile.social.rxjava.internal.disposables.EmptyDisposable;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scheduler for mixed blocking and CPU-bound work whose thread count follows the measured
+ * blocking ratio of its tasks.
+ * <p>
+ * Every task run by the pool is timed both in CPU time and wall time. Once per sampling period the
+ * pool is resized to {@code cpus * targetUtilization * wall / cpu} threads, within the configured
+ * bounds: mostly blocking work gets many threads, pure computation about one per CPU. To avoid
+ * oscillation, the pool only grows when the target is at least a quarter above the current size
+ * and all threads are busy, and only shrinks when the target stayed at or below three quarters of the
+ * current size for {@link #SHRINK_SAMPLES} periods in a row. A period in which no task finished
+ * while all threads were busy and tasks were queued also makes the pool grow, by up to the
+ * backlog, since the running tasks may be waiting for the queued ones. Without a per-thread CPU
+ * clock (neither {@code android.os.Debug} nor a {@code ThreadMXBean} supporting it) the pool only
+ * grows that way.
+ * <p>
+ * Use it in place of the standard IO scheduler via
+ * {@code RxJavaPlugins.setInitIoSchedulerHandler(AdaptiveScheduler.initHandler())}.
+ */
+public final class AdaptiveScheduler extends Scheduler {
+
+    private static final String THREAD_NAME_PREFIX = "RxAdaptiveThreadScheduler";
+
+    /**
+     * The name of the system property for setting the minimum and initial number of threads.
+     */
+    private static final String KEY_MIN_THREADS = "rx2.adaptive-min-threads";
+
+    /**
+     * The name of the system property for setting the maximum number of threads.
+     */
+    private static final String KEY_MAX_THREADS = "rx2.adaptive-max-threads";
+
+    /**
+     * The name of the system property for setting the target CPU utilization, in percent.
+     */
+    private static final String KEY_TARGET_UTILIZATION = "rx2.adaptive-target-utilization";
+
+    /**
+     * The name of the system property for setting the sampling period, in milliseconds.
+     */
+    private static final String KEY_SAMPLE_MILLIS = "rx2.adaptive-sample-millis";
+
+    /**
+     * The name of the system property for setting the thread priority for this Scheduler.
+     */
+    private static final String KEY_PRIORITY = "rx2.adaptive-priority";
+
+    /** The number of consecutive low samples needed before the pool shrinks. */
+    public static final int SHRINK_SAMPLES = 3;
+
+    static final long KEEP_ALIVE_SECONDS = 10;
+
+    /** Each pool thread times one task in {@code SAMPLE_MASK + 1} for the wall to CPU ratio. */
+    static final int SAMPLE_MASK = 7;
+
+    static final int MIN_THREADS;
+
+    static final int MAX_THREADS;
+
+    static final int TARGET_UTILIZATION;
+
+    static final long SAMPLE_MILLIS;
+
+    static final RxThreadFactory THREAD_FACTORY;
+
+    static {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        MIN_THREADS = Math.max(1, Integer.getInteger(KEY_MIN_THREADS, cpus));
+        MAX_THREADS = Math.max(MIN_THREADS, Integer.getInteger(KEY_MAX_THREADS, Math.max(64, cpus * 16)));
+        TARGET_UTILIZATION = Math.max(1, Math.min(100, Integer.getInteger(KEY_TARGET_UTILIZATION, 90)));
+        SAMPLE_MILLIS = Math.max(10L, Long.getLong(KEY_SAMPLE_MILLIS, 1000L));
+
+        int priority = Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY,
+                Integer.getInteger(KEY_PRIORITY, Thread.NORM_PRIORITY)));
+        THREAD_FACTORY = new RxThreadFactory(THREAD_NAME_PREFIX, priority);
+    }
+
+    final int minThreads;
+
+    final int maxThreads;
+
+    final double targetUtilization;
+
+    final long sampleMillis;
+
+    final ThreadFactory threadFactory;
+
+    final AtomicReference<Pool> pool;
+
+    static final Pool NONE = new Pool();
+
+    /** Marks the sampler slot of a shut down pool. */
+    static final Disposable DISPOSED = EmptyDisposable.INSTANCE;
+
+    /**
+     * Creates an adaptive scheduler configured via the {@code rx2.adaptive-*} system properties.
+     */
+    public AdaptiveScheduler() {
+        this(MIN_THREADS, MAX_THREADS, TARGET_UTILIZATION / 100d, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param minThreads        the minimum and initial number of threads, positive
+     * @param maxThreads        the maximum number of threads, at least {@code minThreads}
+     * @param targetUtilization the fraction of the CPUs the pool should keep busy, (0, 1]
+     * @param samplePeriod      the time between two resizing decisions
+     * @param unit              the unit of the sample period
+     */
+    public AdaptiveScheduler(int minThreads, int maxThreads, double targetUtilization, long samplePeriod, TimeUnit unit) {
+        if (minThreads <= 0 || maxThreads < minThreads) {
+            throw new IllegalArgumentException("0 < minThreads <= maxThreads required but it was "
+                    + minThreads + ", " + maxThreads);
+        }
+        if (!(targetUtilization > 0d && targetUtilization <= 1d)) {
+            throw new IllegalArgumentException("targetUtilization in (0, 1] required but it was " + targetUtilization);
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.targetUtilization = targetUtilization;
+        this.sampleMillis = Math.max(1L, unit.toMillis(samplePeriod));
+        this.threadFactory = new OwnedThreadFactory(THREAD_FACTORY, this);
+        this.pool = new AtomicReference<Pool>(NONE);
+        start();
+    }
+
+    /**
+     * Returns a handler for {@code RxJavaPlugins.setInitIoSchedulerHandler} that replaces the standard
+     * IO scheduler with an AdaptiveScheduler configured via the system properties.
+     *
+     * @return the handler function
+     */
+    @NonNull
+    public static Function<Callable<Scheduler>, Scheduler> initHandler() {
+        return new InitHandler();
+    }
+
+    @Override
+    public void start() {
+        Pool next = null;
+        for (;;) {
+            Pool current = pool.get();
+            if (current != NONE) {
+                if (next != null) {
+                    next.shutdown();
+                }
+                return;
+            }
+            if (next == null) {
+                next = new Pool(this);
+            }
+            if (pool.compareAndSet(current, next)) {
+                next.scheduleSample();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        Pool current = pool.getAndSet(NONE);
+        if (current != NONE) {
+            current.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        return OwnedThreadFactory.isCurrentThreadOf(this);
+    }
+
+    @NonNull
+    @Override
+    public Worker createWorker() {
+        return pool.get().scheduler.createWorker();
+    }
+
+    @NonNull
+    @Override
+    public Disposable scheduleDirect(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+        return pool.get().scheduler.scheduleDirect(run, delay, unit);
+    }
+
+    @NonNull
+    @Override
+    public Disposable schedulePeriodicallyDirect(@NonNull Runnable run, long initialDelay, long period, @NonNull TimeUnit unit) {
+        return pool.get().scheduler.schedulePeriodicallyDirect(run, initialDelay, period, unit);
+    }
+
+    /**
+     * @return the thread count the pool is currently sized to
+     */
+    public int targetThreads() {
+        return pool.get().executor.getMaximumPoolSize();
+    }
+
+    /**
+     * @return the number of threads currently alive
+     */
+    public int threadCount() {
+        return pool.get().executor.getPoolSize();
+    }
+
+    /**
+     * @return the wall to CPU time ratio of the tasks in the last sampling period, 0 if none ran
+     */
+    public double lastBlockingRatio() {
+        return pool.get().lastRatio;
+    }
+
+    /**
+     * Returns the thread count for the given ratio, clamped to the bounds.
+     */
+    static int desiredThreads(int cpus, double targetUtilization, double wallToCpu, int min, int max) {
+        double desired = Math.ceil(cpus * targetUtilization * wallToCpu);
+        if (desired < min) {
+            return min;
+        }
+        if (desired > max) {
+            return max;
+        }
+        return (int) desired;
+    }
+
+    static final class Pool implements Runnable {
+        final AdaptiveScheduler parent;
+
+        final SamplingExecutor executor;
+
+        final ExecutorScheduler scheduler;
+
+        final AtomicReference<Disposable> sampler;
+
+        /** Accessed by the sampling task only. */
+        int lowSamples;
+
+        /** Accessed by the sampling task only. */
+        long lastCompleted;
+
+        volatile double lastRatio;
+
+        /** The shut down pool handed out after shutdown. */
+        Pool() {
+            this.parent = null;
+            this.executor = new SamplingExecutor(1, Executors.defaultThreadFactory());
+            this.executor.shutdownNow();
+            this.scheduler = new ExecutorScheduler(executor);
+            this.sampler = new AtomicReference<Disposable>();
+        }
+
+        Pool(AdaptiveScheduler parent) {
+            this.parent = parent;
+            this.executor = new SamplingExecutor(parent.minThreads, parent.threadFactory);
+            this.scheduler = new ExecutorScheduler(executor);
+            this.sampler = new AtomicReference<Disposable>();
+        }
+
+        void scheduleSample() {
+            Disposable d = ExecutorScheduler.defaultTimer().schedule(this, parent.sampleMillis, TimeUnit.MILLISECONDS);
+            Disposable prev = sampler.get();
+            if (prev == DISPOSED || !sampler.compareAndSet(prev, d)) {
+                d.dispose();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (executor.isShutdown()) {
+                return;
+            }
+            // decide on the timer thread: queued behind the pool's own tasks, the decision could
+            // wait forever for the very threads it is supposed to add
+            resize();
+        }
+
+        void resize() {
+            long wall = executor.wallNanos.getAndSet(0L);
+            long cpu = executor.cpuNanos.getAndSet(0L);
+            long completed = executor.getCompletedTaskCount();
+            long finished = completed - lastCompleted;
+            lastCompleted = completed;
+            int size = executor.getMaximumPoolSize();
+            int backlog = executor.getQueue().size();
+            boolean busy = executor.getActiveCount() >= size;
+            if (cpu > 0L) {
+                double ratio = (double) wall / cpu;
+                lastRatio = ratio;
+                int desired = desiredThreads(Runtime.getRuntime().availableProcessors(), parent.targetUtilization,
+                        ratio, parent.minThreads, parent.maxThreads);
+                if (desired * 4 >= size * 5 && (busy || backlog != 0)) {
+                    grow(desired);
+                } else if (desired * 4 <= size * 3) {
+                    if (++lowSamples >= SHRINK_SAMPLES) {
+                        lowSamples = 0;
+                        executor.setCorePoolSize(desired);
+                        executor.setMaximumPoolSize(desired);
+                    }
+                } else {
+                    lowSamples = 0;
+                }
+            } else if (finished == 0L && busy && backlog != 0 && size < parent.maxThreads) {
+                // nothing finished while work was waiting: the running tasks block, possibly on
+                // the queued ones, so add threads for the backlog, at most doubling per period
+                grow(Math.min(parent.maxThreads, size + Math.min(backlog, size)));
+            }
+            scheduleSample();
+        }
+
+        void grow(int desired) {
+            lowSamples = 0;
+            executor.setMaximumPoolSize(desired);
+            executor.setCorePoolSize(desired);
+        }
+
+        void shutdown() {
+            Disposable d = sampler.getAndSet(DISPOSED);
+            if (d != null && d != DISPOSED) {
+                d.dispose();
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Thread pool accumulating the CPU and wall time of a sample of the tasks it runs: the clocks
+     * are read around one task in {@link #SAMPLE_MASK} + 1 per thread, so the ratio the sampler
+     * needs costs a thread-local increment on the other tasks.
+     */
+    static final class SamplingExecutor extends ThreadPoolExecutor {
+        final AtomicLong wallNanos = new AtomicLong();
+
+        final AtomicLong cpuNanos = new AtomicLong();
+
+        final ThreadLocal<long[]> starts = new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue() {
+                return new long[3];
+            }
+        };
+
+        SamplingExecutor(int threads, ThreadFactory threadFactory) {
+            super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), threadFactory);
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            long[] s = starts.get();
+            if ((s[2]++ & SAMPLE_MASK) != 0L) {
+                s[1] = -1L;
+                return;
+            }
+            s[0] = System.nanoTime();
+            s[1] = CpuClock.threadCpuNanos();
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            long[] s = starts.get();
+            if (s[1] >= 0L) {
+                long cpu = CpuClock.threadCpuNanos() - s[1];
+                wallNanos.addAndGet(System.nanoTime() - s[0]);
+                cpuNanos.addAndGet(Math.max(1L, cpu));
+            }
+        }
+    }
+
+    /**
+     * The CPU time of the current thread, from {@code android.os.Debug} on Android and from the
+     * {@code ThreadMXBean} elsewhere; the latter is missing on Android and only reached reflectively.
+     */
+    static final class CpuClock {
+        static final boolean ANDROID;
+
+        static final Object MX_BEAN;
+
+        static final Method MX_CPU_TIME;
+
+        static {
+            boolean android = false;
+            Object bean = null;
+            Method cpuTime = null;
+            try {
+                Class.forName("android.os.Debug");
+                android = AndroidClock.threadCpuNanos() >= 0L;
+            } catch (Throwable ex) {
+                // not on Android
+            }
+            if (!android) {
+                try {
+                    Class<?> factory = Class.forName("java.lang.management.ManagementFactory");
+                    bean = factory.getMethod("getThreadMXBean").invoke(null);
+                    Class<?> type = Class.forName("java.lang.management.ThreadMXBean");
+                    if ((Boolean) type.getMethod("isCurrentThreadCpuTimeSupported").invoke(bean)) {
+                        type.getMethod("setThreadCpuTimeEnabled", boolean.class).invoke(bean, true);
+                        cpuTime = type.getMethod("getCurrentThreadCpuTime");
+                    } else {
+                        bean = null;
+                    }
+                } catch (Throwable ignored) {
+                    bean = null;
+                    cpuTime = null;
+                }
+            }
+            ANDROID = android;
+            MX_BEAN = bean;
+            MX_CPU_TIME = cpuTime;
+        }
+
+        private CpuClock() {
+            throw new IllegalStateException("No instances!");
+        }
+
+        /**
+         * @return the CPU time of the current thread in nanoseconds, or -1 if not available
+         */
+        static long threadCpuNanos() {
+            if (ANDROID) {
+                return AndroidClock.threadCpuNanos();
+            }
+            if (MX_CPU_TIME != null) {
+                try {
+                    return (Long) MX_CPU_TIME.invoke(MX_BEAN);
+                } catch (Throwable ignored) {
+                    // fall through
+                }
+            }
+            return -1L;
+        }
+    }
+
+    /**
+     * Calls {@code android.os.Debug} directly; only loaded once {@link CpuClock} found that class.
+     */
+    static final class AndroidClock {
+        private AndroidClock() {
+            throw new IllegalStateException("No instances!");
+        }
+
+        static long threadCpuNanos() {
+            return Debug.threadCpuTimeNanos();
+        }
+    }
+
+    static final class InitHandler implements Function<Callable<Scheduler>, Scheduler> {
+        @Override
+        public Scheduler apply(Callable<Scheduler> original) {
+            return new AdaptiveScheduler();
+        }
+    }
+}
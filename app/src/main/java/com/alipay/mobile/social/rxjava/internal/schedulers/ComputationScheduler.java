@@ -17,21 +17,22 @@ package com.alipay.mobile.social.rxjava.internal.schedulers;
 
 import com.alipay.mobile.social.rxjava.Scheduler;
 import com.alipay.mobile.social.rxjava.annotations.NonNull;
-import com.alipay.mobile.social.rxjava.disposables.CompositeDisposable;
 import com.alipay.mobile.social.rxjava.disposables.Disposable;
 import com.alipay.mobile.social.rxjava.internal.disposables.EmptyDisposable;
-import com.alipay.mobile.social.rxjava.internal.disposables.ListCompositeDisposable;
 
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 
 /**
  * Holds a fixed pool of worker threads and assigns them
- * to requested Scheduler.Workers in a round-robin fashion.
+ * to requested Scheduler.Workers in a round-robin or least-loaded fashion.
  */
-public final class ComputationScheduler extends Scheduler {
+public final class ComputationScheduler extends Scheduler implements InstrumentedScheduler {
     /**
      * This will indicate no pool is active.
      */
@@ -50,11 +51,19 @@ public final class ComputationScheduler extends Scheduler {
      * The maximum number of computation scheduler threads.
      */
     static final int MAX_THREADS;
-
-    static final PoolWorker SHUTDOWN_WORKER;
+    /**
+     * Key to setting the event loop selection policy of the computation scheduler:
+     * {@code round-robin} (default) or {@code least-loaded}.
+     */
+    static final String KEY_SELECTION = "rx2.computation-selection";
+    /**
+     * Indicates the event loop with the fewest pending tasks is picked for new workers.
+     */
+    static final boolean LEAST_LOADED;
 
     final ThreadFactory threadFactory;
     final AtomicReference<FixedSchedulerPool> pool;
+    final AtomicInteger activeWorkers;
     /**
      * The name of the system property for setting the thread priority for this Scheduler.
      */
@@ -62,8 +71,7 @@ public final class ComputationScheduler extends Scheduler {
 
     static {
         MAX_THREADS = cap(Runtime.getRuntime().availableProcessors(), Integer.getInteger(KEY_MAX_THREADS, 0));
-        SHUTDOWN_WORKER = new PoolWorker(new RxThreadFactory("RxComputationShutdown"));
-        SHUTDOWN_WORKER.dispose();
+        LEAST_LOADED = "least-loaded".equals(System.getProperty(KEY_SELECTION));
 
         int priority = Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY,
                 Integer.getInteger(KEY_COMPUTATION_PRIORITY, Thread.NORM_PRIORITY)));
@@ -74,6 +82,19 @@ public final class ComputationScheduler extends Scheduler {
         NONE.shutdown();
     }
 
+    /**
+     * Holds the disposed worker handed out after shutdown, created on demand so that
+     * loading this class doesn't register an executor.
+     */
+    static final class ShutdownWorker {
+        static final PoolWorker INSTANCE;
+
+        static {
+            INSTANCE = new PoolWorker(new RxThreadFactory("RxComputationShutdown"));
+            INSTANCE.dispose();
+        }
+    }
+
     static int cap(int cpuCount, int paramThreads) {
         return paramThreads <= 0 || paramThreads > cpuCount ? cpuCount : paramThreads;
     }
@@ -81,35 +102,92 @@ public final class ComputationScheduler extends Scheduler {
     static final class FixedSchedulerPool {
         final int cores;
 
-        final PoolWorker[] eventLoops;
-        long n;
-        ThreadFactory threadFactory;
+        /**
+         * The event loops, created on first use; a slot holding {@link ShutdownWorker#INSTANCE} indicates
+         * the pool has been shut down.
+         */
+        final AtomicReferenceArray<PoolWorker> eventLoops;
+        final AtomicLong n;
+        final ThreadFactory threadFactory;
 
         FixedSchedulerPool(int maxThreads, ThreadFactory threadFactory) {
             // initialize event loops
             this.cores = maxThreads;
             this.threadFactory = threadFactory;
-            this.eventLoops = new PoolWorker[maxThreads];
+            this.eventLoops = new AtomicReferenceArray<PoolWorker>(maxThreads);
+            this.n = new AtomicLong();
         }
 
         public PoolWorker getEventLoop() {
             int c = cores;
             if (c == 0) {
-                return SHUTDOWN_WORKER;
+                return ShutdownWorker.INSTANCE;
+            }
+            int start = (int) ((n.getAndIncrement() & Long.MAX_VALUE) % c);
+            if (!LEAST_LOADED) {
+                return eventLoop(start);
+            }
+            // pick the loop with the fewest pending tasks, ties go round-robin from start
+            int best = start;
+            int bestPending = Integer.MAX_VALUE;
+            for (int i = 0; i < c; i++) {
+                int index = start + i;
+                if (index >= c) {
+                    index -= c;
+                }
+                PoolWorker w = eventLoops.get(index);
+                int pending = w != null ? w.pendingTasks() : 0;
+                if (pending < bestPending) {
+                    best = index;
+                    bestPending = pending;
+                    if (pending == 0) {
+                        break;
+                    }
+                }
             }
-            // simple round robin, improvements to come
-            int index = (int) (n++ % c);
-            PoolWorker poolWorker = eventLoops[index];
-            if (null == poolWorker) {
-                poolWorker = new PoolWorker(threadFactory);
-                eventLoops[index] = poolWorker;
+            return eventLoop(best);
+        }
+
+        PoolWorker eventLoop(int index) {
+            PoolWorker poolWorker = eventLoops.get(index);
+            if (poolWorker == null) {
+                PoolWorker created = new PoolWorker(threadFactory);
+                if (eventLoops.compareAndSet(index, null, created)) {
+                    return created;
+                }
+                // lost the race against another creator or shutdown()
+                created.dispose();
+                poolWorker = eventLoops.get(index);
             }
             return poolWorker;
         }
 
+        int threadCount() {
+            int n = 0;
+            for (int i = 0; i < cores; i++) {
+                PoolWorker w = eventLoops.get(i);
+                if (w != null && w != ShutdownWorker.INSTANCE) {
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        int[] pendingTaskCounts() {
+            int[] pending = new int[cores];
+            for (int i = 0; i < cores; i++) {
+                PoolWorker w = eventLoops.get(i);
+                pending[i] = w != null ? w.pendingTasks() : 0;
+            }
+            return pending;
+        }
+
         public void shutdown() {
-            for (PoolWorker w : eventLoops) {
-                w.dispose();
+            for (int i = 0; i < cores; i++) {
+                PoolWorker w = eventLoops.getAndSet(i, ShutdownWorker.INSTANCE);
+                if (w != null) {
+                    w.dispose();
+                }
             }
         }
     }
@@ -130,14 +208,15 @@ public final class ComputationScheduler extends Scheduler {
      *                      system properties for configuring new thread creation. Cannot be null.
      */
     public ComputationScheduler(ThreadFactory threadFactory) {
-        this.threadFactory = threadFactory;
+        this.threadFactory = new OwnedThreadFactory(threadFactory, this);
         this.pool = new AtomicReference<FixedSchedulerPool>(NONE);
+        this.activeWorkers = new AtomicInteger();
         start();
     }
 
     @Override
     public Worker createWorker() {
-        return new EventLoopWorker(pool.get().getEventLoop());
+        return new EventLoopWorker(pool.get().getEventLoop(), activeWorkers);
     }
 
     @Override
@@ -174,35 +253,40 @@ public final class ComputationScheduler extends Scheduler {
         }
     }
 
+    @Override
+    public boolean isCurrentThread() {
+        return OwnedThreadFactory.isCurrentThreadOf(this);
+    }
 
-    static final class EventLoopWorker extends Scheduler.Worker {
-        private final ListCompositeDisposable serial;
-        private final CompositeDisposable timed;
-        private final ListCompositeDisposable both;
-        private final PoolWorker poolWorker;
+    @Override
+    public int activeWorkerCount() {
+        return activeWorkers.get();
+    }
 
-        volatile boolean disposed;
+    @Override
+    public int threadCount() {
+        return pool.get().threadCount();
+    }
 
-        EventLoopWorker(PoolWorker poolWorker) {
-            this.poolWorker = poolWorker;
-            this.serial = new ListCompositeDisposable();
-            this.timed = new CompositeDisposable();
-            this.both = new ListCompositeDisposable();
-            this.both.add(serial);
-            this.both.add(timed);
-        }
+    @Override
+    public int[] pendingTaskCounts() {
+        return pool.get().pendingTaskCounts();
+    }
 
-        @Override
-        public void dispose() {
-            if (!disposed) {
-                disposed = true;
-                both.dispose();
-            }
+
+    static final class EventLoopWorker extends LeanWorker {
+        private final PoolWorker poolWorker;
+        private final AtomicInteger activeWorkers;
+
+        EventLoopWorker(PoolWorker poolWorker, AtomicInteger activeWorkers) {
+            this.poolWorker = poolWorker;
+            this.activeWorkers = activeWorkers;
+            activeWorkers.getAndIncrement();
         }
 
         @Override
-        public boolean isDisposed() {
-            return disposed;
+        protected void onDispose() {
+            activeWorkers.getAndDecrement();
         }
 
         @Override
@@ -211,7 +295,7 @@ public final class ComputationScheduler extends Scheduler {
                 return EmptyDisposable.INSTANCE;
             }
 
-            return poolWorker.scheduleActual(action, 0, TimeUnit.MILLISECONDS, serial);
+            return poolWorker.scheduleActual(action, 0, TimeUnit.MILLISECONDS, this);
         }
 
         @Override
@@ -220,7 +304,7 @@ public final class ComputationScheduler extends Scheduler {
                 return EmptyDisposable.INSTANCE;
             }
 
-            return poolWorker.scheduleActual(action, delayTime, unit, timed);
+            return poolWorker.scheduleActual(action, delayTime, unit, this);
         }
     }
 
@@ -228,5 +312,14 @@ public final class ComputationScheduler extends Scheduler {
         PoolWorker(ThreadFactory threadFactory) {
             super(threadFactory);
         }
+
+        /**
+         * Returns the number of tasks waiting in this event loop's queue.
+         *
+         * @return the number of tasks waiting, including delayed ones
+         */
+        int pendingTasks() {
+            return queueSize();
+        }
     }
 }
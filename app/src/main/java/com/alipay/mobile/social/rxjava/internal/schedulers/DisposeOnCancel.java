@@ -24,10 +24,10 @@ import java.util.concurrent.TimeoutException;
  * Implements the Future interface and calls dispose() on cancel() but
  * the other methods are not implemented.
  */
-final class DisposeOnCancel implements Future<Object> {
+public final class DisposeOnCancel implements Future<Object> {
     final Disposable d;
 
-    DisposeOnCancel(Disposable d) {
+    public DisposeOnCancel(Disposable d) {
         this.d = d;
     }
 
@@ -20,10 +20,10 @@ import com.alipay.mobile.social.rxjava.disposables.Disposable;
 import com.alipay.mobile.social.rxjava.internal.disposables.DisposableHelper;
 import com.alipay.mobile.social.rxjava.internal.disposables.EmptyDisposable;
 import com.alipay.mobile.social.rxjava.internal.disposables.SequentialDisposable;
-import com.alipay.mobile.social.rxjava.internal.queue.MpscLinkedQueue;
+import com.alipay.mobile.social.rxjava.internal.queue.MpscChunkedQueue;
 import com.alipay.mobile.social.rxjava.internal.schedulers.ExecutorScheduler.ExecutorWorker.BooleanRunnable;
 import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
-import com.alipay.mobile.social.rxjava.schedulers.Schedulers;
+import com.alipay.mobile.social.rxjava.schedulers.DelayTimer;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
@@ -42,19 +42,103 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public final class ExecutorScheduler extends Scheduler {
 
+    /**
+     * The name of the system property for the maximum number of tasks a worker runs before it
+     * yields its executor thread; zero or less means unbounded.
+     */
+    static final String KEY_MAX_TASKS_PER_RUN = "rx2.executor-max-tasks-per-run";
+
+    /**
+     * The name of the system property for the time, in microseconds, a worker may keep its executor
+     * thread before it yields it; zero or less means unbounded.
+     */
+    static final String KEY_TIME_SLICE_MICROS = "rx2.executor-time-slice-micros";
+
+    static final int MAX_TASKS_PER_RUN;
+
+    static final long TIME_SLICE_NANOS;
+
+    static {
+        MAX_TASKS_PER_RUN = Integer.getInteger(KEY_MAX_TASKS_PER_RUN, 0);
+        TIME_SLICE_NANOS = TimeUnit.MICROSECONDS.toNanos(Long.getLong(KEY_TIME_SLICE_MICROS, 0L));
+    }
+
     @NonNull
     final Executor executor;
 
-    static final Scheduler HELPER = Schedulers.single();
+    final int maxTasksPerRun;
+
+    final long timeSliceNanos;
+
+    /** Runs the delays for executors that can't schedule by themselves. */
+    @NonNull
+    final DelayTimer timer;
+
+    /**
+     * The timer shared by executor-backed schedulers: the shared wheel timer if
+     * {@code rx2.wheel-timer} is set, otherwise a dedicated timer thread.
+     */
+    static final class TimerHolder {
+        static final DelayTimer DEFAULT = HashedWheelTimer.ENABLED ? HashedWheelTimer.instance()
+                : new ScheduledExecutorTimer(new RxThreadFactory("RxExecutorTimer", Thread.MAX_PRIORITY, true));
+    }
+
+    /**
+     * Returns the timer executor-backed schedulers use by default for their delayed tasks.
+     *
+     * @return the shared DelayTimer
+     */
+    @NonNull
+    public static DelayTimer defaultTimer() {
+        return TimerHolder.DEFAULT;
+    }
 
     public ExecutorScheduler(@NonNull Executor executor) {
+        this(executor, MAX_TASKS_PER_RUN, TIME_SLICE_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param executor the executor to run the workers on
+     * @param timer    the timer for delayed tasks if the executor is not a ScheduledExecutorService
+     */
+    public ExecutorScheduler(@NonNull Executor executor, @NonNull DelayTimer timer) {
+        this(executor, MAX_TASKS_PER_RUN, TIME_SLICE_NANOS, TimeUnit.NANOSECONDS, timer);
+    }
+
+    /**
+     * @param executor       the executor to run the workers on
+     * @param maxTasksPerRun the number of tasks a worker runs before it re-submits itself to the
+     *                       executor, zero or less for unbounded
+     * @param timeSlice      the time a worker may keep an executor thread before it re-submits itself,
+     *                       zero or less for unbounded
+     * @param unit           the unit of the time slice
+     */
+    public ExecutorScheduler(@NonNull Executor executor, int maxTasksPerRun, long timeSlice, @NonNull TimeUnit unit) {
+        this(executor, maxTasksPerRun, timeSlice, unit, null);
+    }
+
+    /**
+     * @param executor       the executor to run the workers on
+     * @param maxTasksPerRun the number of tasks a worker runs before it re-submits itself to the
+     *                       executor, zero or less for unbounded
+     * @param timeSlice      the time a worker may keep an executor thread before it re-submits itself,
+     *                       zero or less for unbounded
+     * @param unit           the unit of the time slice
+     * @param timer          the timer for delayed tasks if the executor is not a ScheduledExecutorService,
+     *                       null for {@link #defaultTimer()}
+     */
+    public ExecutorScheduler(@NonNull Executor executor, int maxTasksPerRun, long timeSlice, @NonNull TimeUnit unit,
+                             DelayTimer timer) {
         this.executor = executor;
+        this.maxTasksPerRun = maxTasksPerRun;
+        this.timeSliceNanos = unit.toNanos(timeSlice);
+        this.timer = timer != null ? timer : defaultTimer();
     }
 
     @NonNull
     @Override
     public Worker createWorker() {
-        return new ExecutorWorker(executor);
+        return new ExecutorWorker(executor, maxTasksPerRun, timeSliceNanos, timer);
     }
 
     @NonNull
@@ -81,7 +165,7 @@ public final class ExecutorScheduler extends Scheduler {
     @NonNull
     @Override
     public Disposable scheduleDirect(@NonNull Runnable run, final long delay, final TimeUnit unit) {
-        final Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+        final Runnable decoratedRun = RxJavaPlugins.onSchedule(run, delay, unit);
         if (executor instanceof ScheduledExecutorService) {
             try {
                 ScheduledDirectTask task = new ScheduledDirectTask(decoratedRun);
@@ -96,7 +180,7 @@ public final class ExecutorScheduler extends Scheduler {
 
         final DelayedRunnable dr = new DelayedRunnable(decoratedRun);
 
-        Disposable delayed = HELPER.scheduleDirect(new DelayedDispose(dr), delay, unit);
+        Disposable delayed = timer.schedule(new DelayedDispose(dr), delay, unit);
 
         dr.timed.replace(delayed);
 
@@ -107,7 +191,7 @@ public final class ExecutorScheduler extends Scheduler {
     @Override
     public Disposable schedulePeriodicallyDirect(@NonNull Runnable run, long initialDelay, long period, TimeUnit unit) {
         if (executor instanceof ScheduledExecutorService) {
-            Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+            Runnable decoratedRun = RxJavaPlugins.onSchedule(run, initialDelay, unit);
             try {
                 ScheduledDirectPeriodicTask task = new ScheduledDirectPeriodicTask(decoratedRun);
                 Future<?> f = ((ScheduledExecutorService)executor).scheduleAtFixedRate(task, initialDelay, period, unit);
@@ -122,9 +206,21 @@ public final class ExecutorScheduler extends Scheduler {
     }
     /* public: test support. */
     public static final class ExecutorWorker extends Scheduler.Worker implements Runnable {
+        /**
+         * Small chunks: a worker allocates its first chunk with its first task, and a busy worker
+         * one more per this many tasks.
+         */
+        static final int WORKER_CHUNK_SIZE = 32;
+
         final Executor executor;
 
-        final MpscLinkedQueue<Runnable> queue;
+        final MpscChunkedQueue<Runnable> queue;
+
+        final int maxTasksPerRun;
+
+        final long timeSliceNanos;
+
+        final DelayTimer timer;
 
         volatile boolean disposed;
 
@@ -133,8 +229,21 @@ public final class ExecutorScheduler extends Scheduler {
         final CompositeDisposable tasks = new CompositeDisposable();
 
         public ExecutorWorker(Executor executor) {
+            this(executor, 0, 0L, defaultTimer());
+        }
+
+        /**
+         * @param executor       the executor to run on
+         * @param maxTasksPerRun the number of tasks to run before yielding the executor thread, zero or less for unbounded
+         * @param timeSliceNanos the time to run before yielding the executor thread, zero or less for unbounded
+         * @param timer          the timer for delayed tasks if the executor is not a ScheduledExecutorService
+         */
+        public ExecutorWorker(Executor executor, int maxTasksPerRun, long timeSliceNanos, DelayTimer timer) {
             this.executor = executor;
-            this.queue = new MpscLinkedQueue<Runnable>();
+            this.queue = new MpscChunkedQueue<Runnable>(WORKER_CHUNK_SIZE);
+            this.maxTasksPerRun = maxTasksPerRun > 0 ? maxTasksPerRun : Integer.MAX_VALUE;
+            this.timeSliceNanos = timeSliceNanos;
+            this.timer = timer;
         }
 
         @NonNull
@@ -178,7 +287,7 @@ public final class ExecutorScheduler extends Scheduler {
 
             final SequentialDisposable mar = new SequentialDisposable(first);
 
-            final Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+            final Runnable decoratedRun = RxJavaPlugins.onSchedule(run, delay, unit);
 
             ScheduledRunnable sr = new ScheduledRunnable(new SequentialDispose(mar, decoratedRun), tasks);
             tasks.add(sr);
@@ -193,7 +302,7 @@ public final class ExecutorScheduler extends Scheduler {
                     return EmptyDisposable.INSTANCE;
                 }
             } else {
-                final Disposable d = HELPER.scheduleDirect(sr, delay, unit);
+                final Disposable d = timer.schedule(sr, delay, unit);
                 sr.setFuture(new DisposeOnCancel(d));
             }
 
@@ -221,7 +330,11 @@ public final class ExecutorScheduler extends Scheduler {
         @Override
         public void run() {
             int missed = 1;
-            final MpscLinkedQueue<Runnable> q = queue;
+            final MpscChunkedQueue<Runnable> q = queue;
+            final int maxTasks = maxTasksPerRun;
+            final long slice = timeSliceNanos;
+            final long deadline = slice > 0L ? System.nanoTime() + slice : 0L;
+            int budget = maxTasks;
             for (;;) {
 
                 if (disposed) {
@@ -240,6 +353,12 @@ public final class ExecutorScheduler extends Scheduler {
                         q.clear();
                         return;
                     }
+
+                    if ((--budget <= 0 || (slice > 0L && System.nanoTime() - deadline >= 0L)) && !q.isEmpty()) {
+                        // out of budget: give the thread to other workers, wip stays non-zero meanwhile
+                        yieldThread();
+                        return;
+                    }
                 }
 
                 if (disposed) {
@@ -254,12 +373,22 @@ public final class ExecutorScheduler extends Scheduler {
             }
         }
 
-        static final class BooleanRunnable extends AtomicBoolean implements Runnable, Disposable {
+        void yieldThread() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException ex) {
+                disposed = true;
+                queue.clear();
+                RxJavaPlugins.onError(ex);
+            }
+        }
+
+        public static final class BooleanRunnable extends AtomicBoolean implements Runnable, Disposable {
 
             private static final long serialVersionUID = -2421395018820541164L;
 
             final Runnable actual;
-            BooleanRunnable(Runnable actual) {
+            public BooleanRunnable(Runnable actual) {
                 this.actual = actual;
             }
 
@@ -0,0 +1,408 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.internal.schedulers;
+
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.internal.queue.MpscLinkedQueue;
+import com.alipay.mobile.social.rxjava.internal.util.Pow2;
+import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
+import com.alipay.mobile.social.rxjava.schedulers.DelayTimer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel that only does timekeeping: expired tasks are run on the timer
+ * thread and are expected to hand the actual work over to some executor.
+ * <p>
+ * Scheduling and cancelling are O(1): new timeouts and cancellations are queued and moved
+ * into/out of the wheel's buckets by the timer thread once per tick. Timeouts fire on the first
+ * tick boundary at or after their deadline, so they may be late by up to one tick but never early.
+ * The timer thread parks indefinitely while no timeouts are pending.
+ */
+public final class HashedWheelTimer implements DelayTimer, Runnable {
+
+    /**
+     * The name of the system property that routes the delayed tasks of the standard
+     * schedulers' workers through the shared wheel timer.
+     */
+    static final String KEY_ENABLED = "rx2.wheel-timer";
+
+    /**
+     * The name of the system property for setting the tick resolution of the shared wheel timer, in milliseconds.
+     */
+    static final String KEY_TICK_MILLIS = "rx2.wheel-timer-tick-millis";
+
+    /**
+     * The name of the system property for setting the number of buckets of the shared wheel timer.
+     */
+    static final String KEY_WHEEL_SIZE = "rx2.wheel-timer-size";
+
+    /**
+     * Indicates the workers of the standard schedulers use the shared wheel timer for delayed tasks.
+     */
+    public static final boolean ENABLED;
+
+    static final long TICK_MILLIS;
+
+    static final int WHEEL_SIZE;
+
+    static {
+        ENABLED = Boolean.getBoolean(KEY_ENABLED);
+        TICK_MILLIS = Math.max(1L, Long.getLong(KEY_TICK_MILLIS, 10L));
+        WHEEL_SIZE = Math.max(16, Integer.getInteger(KEY_WHEEL_SIZE, 512));
+    }
+
+    static final class Holder {
+        static final HashedWheelTimer DEFAULT = new HashedWheelTimer(TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE,
+                new RxThreadFactory("RxHashedWheelTimer", Thread.MAX_PRIORITY, true));
+    }
+
+    static final int STATE_INIT = 0;
+    static final int STATE_STARTED = 1;
+    static final int STATE_SHUTDOWN = 2;
+
+    final long tickNanos;
+
+    final Bucket[] wheel;
+
+    final int mask;
+
+    final MpscLinkedQueue<Timeout> pending;
+
+    final MpscLinkedQueue<Timeout> cancelled;
+
+    final AtomicInteger state;
+
+    /**
+     * Number of timeouts scheduled and not yet fired or removed; the timer thread parks while zero.
+     */
+    final AtomicLong count;
+
+    final ThreadFactory threadFactory;
+
+    volatile Thread thread;
+
+    /** Accessed by the timer thread only. */
+    long startTime;
+
+    /** Accessed by the timer thread only. */
+    long tick;
+
+    /**
+     * Creates a wheel timer; its thread is started on first use.
+     *
+     * @param tick          the tick resolution
+     * @param unit          the unit of the tick
+     * @param wheelSize     the number of buckets, rounded up to a power of 2
+     * @param threadFactory the factory for the timer thread
+     */
+    public HashedWheelTimer(long tick, TimeUnit unit, int wheelSize, ThreadFactory threadFactory) {
+        this.tickNanos = Math.max(1L, unit.toNanos(tick));
+        int size = Pow2.roundToPowerOfTwo(wheelSize);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.pending = new MpscLinkedQueue<Timeout>();
+        this.cancelled = new MpscLinkedQueue<Timeout>();
+        this.state = new AtomicInteger();
+        this.count = new AtomicLong();
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Returns the shared wheel timer configured via the {@code rx2.wheel-timer-tick-millis}
+     * and {@code rx2.wheel-timer-size} system properties.
+     *
+     * @return the shared instance
+     */
+    public static HashedWheelTimer instance() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * Runs the given task on the timer thread after the given delay.
+     * <p>The task should be short and hand any actual work over to another thread.
+     *
+     * @param run   the task to run
+     * @param delay the delay amount
+     * @param unit  the unit of the delay
+     * @return the Disposable to cancel the timeout
+     */
+    @NonNull
+    @Override
+    public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+        if (state.get() == STATE_SHUTDOWN) {
+            throw new RejectedExecutionException("Timer has been shut down");
+        }
+        Timeout t = new Timeout(run, System.nanoTime() + Math.max(0L, unit.toNanos(delay)));
+        pending.offer(t);
+        if (count.getAndIncrement() == 0L) {
+            wakeUp();
+        }
+        return t;
+    }
+
+    /**
+     * Schedules the given worker task on the executor once the delay elapsed on the shared
+     * timer and returns a Future that cancels the timeout.
+     *
+     * @param executor the executor to run the task on
+     * @param sr       the worker task
+     * @param delay    the delay amount
+     * @param unit     the unit of the delay
+     * @return the future to be set on the worker task
+     */
+    static Future<?> scheduleOn(Executor executor, ScheduledRunnable sr, long delay, TimeUnit unit) {
+        return new DisposeOnCancel(instance().schedule(new HandOff(executor, sr), delay, unit));
+    }
+
+    /**
+     * Stops the timer thread; pending timeouts are dropped.
+     */
+    public void shutdown() {
+        if (state.getAndSet(STATE_SHUTDOWN) != STATE_SHUTDOWN) {
+            Thread t = thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+    }
+
+    void wakeUp() {
+        if (state.get() == STATE_INIT && state.compareAndSet(STATE_INIT, STATE_STARTED)) {
+            Thread t = threadFactory.newThread(this);
+            thread = t;
+            t.start();
+        } else {
+            Thread t = thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        startTime = System.nanoTime();
+        tick = 0L;
+        while (state.get() != STATE_SHUTDOWN) {
+            if (count.get() == 0L) {
+                LockSupport.park(this);
+                // nothing is in the wheel, so it can be rebased to the current time
+                long elapsed = System.nanoTime() - startTime;
+                tick = Math.max(tick, elapsed / tickNanos);
+                continue;
+            }
+
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleep = deadline - System.nanoTime();
+            if (sleep > 0L) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+
+            transferPending();
+            removeCancelled();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    void transferPending() {
+        // bound the work per tick so a flood of new timeouts can't stall expiration
+        for (int i = 0; i < 100000; i++) {
+            Timeout t = pending.poll();
+            if (t == null) {
+                break;
+            }
+            if (t.get() != Timeout.INIT) {
+                count.decrementAndGet();
+                continue;
+            }
+            long relative = t.deadline - startTime;
+            long target = relative <= 0L ? 0L : (relative + tickNanos - 1) / tickNanos - 1;
+            if (target < tick) {
+                target = tick;
+            }
+            t.remainingRounds = (target - tick) / wheel.length;
+            wheel[(int) (target & mask)].add(t);
+        }
+    }
+
+    void removeCancelled() {
+        for (;;) {
+            Timeout t = cancelled.poll();
+            if (t == null) {
+                break;
+            }
+            Bucket b = t.bucket;
+            if (b != null) {
+                b.remove(t);
+                count.decrementAndGet();
+            }
+        }
+    }
+
+    void expire(Bucket b) {
+        Timeout t = b.head;
+        while (t != null) {
+            Timeout next = t.next;
+            if (t.get() == Timeout.CANCELLED) {
+                b.remove(t);
+                count.decrementAndGet();
+            } else if (t.remainingRounds <= 0L) {
+                b.remove(t);
+                count.decrementAndGet();
+                if (t.compareAndSet(Timeout.INIT, Timeout.EXPIRED)) {
+                    try {
+                        t.run.run();
+                    } catch (Throwable ex) {
+                        RxJavaPlugins.onError(ex);
+                    }
+                }
+            } else {
+                t.remainingRounds--;
+            }
+            t = next;
+        }
+    }
+
+    final class Timeout extends AtomicInteger implements Disposable {
+
+        private static final long serialVersionUID = -2447454372004624862L;
+
+        static final int INIT = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+
+        final Runnable run;
+
+        final long deadline;
+
+        /** Accessed by the timer thread only. */
+        long remainingRounds;
+
+        /** Accessed by the timer thread only. */
+        Bucket bucket;
+
+        /** Accessed by the timer thread only. */
+        Timeout prev;
+
+        /** Accessed by the timer thread only. */
+        Timeout next;
+
+        Timeout(Runnable run, long deadline) {
+            this.run = run;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void dispose() {
+            if (compareAndSet(INIT, CANCELLED)) {
+                cancelled.offer(this);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return get() != INIT;
+        }
+    }
+
+    /**
+     * Intrusive doubly-linked list of timeouts, accessed by the timer thread only.
+     */
+    static final class Bucket {
+        Timeout head;
+        Timeout tail;
+
+        void add(Timeout t) {
+            t.bucket = this;
+            if (head == null) {
+                head = t;
+                tail = t;
+            } else {
+                tail.next = t;
+                t.prev = tail;
+                tail = t;
+            }
+        }
+
+        void remove(Timeout t) {
+            Timeout p = t.prev;
+            Timeout n = t.next;
+            if (p != null) {
+                p.next = n;
+            } else {
+                head = n;
+            }
+            if (n != null) {
+                n.prev = p;
+            } else {
+                tail = p;
+            }
+            t.prev = null;
+            t.next = null;
+            t.bucket = null;
+        }
+    }
+
+    /**
+     * Moves an expired worker task from the timer thread to its executor and then runs it
+     * there unless it was disposed in the meantime.
+     */
+    static final class HandOff implements Runnable {
+        final Executor executor;
+
+        final ScheduledRunnable sr;
+
+        boolean fired;
+
+        HandOff(Executor executor, ScheduledRunnable sr) {
+            this.executor = executor;
+            this.sr = sr;
+        }
+
+        @Override
+        public void run() {
+            if (fired) {
+                if (!sr.isDisposed()) {
+                    sr.run();
+                }
+                return;
+            }
+            fired = true;
+            if (sr.isDisposed()) {
+                return;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException ex) {
+                if (!sr.isDisposed()) {
+                    RxJavaPlugins.onError(ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.internal.schedulers;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.internal.disposables.EmptyDisposable;
+import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes tasks immediately on the calling thread, blocking it for the delay of delayed tasks.
+ * <p>Unlike the {@link TrampolineScheduler}, a task scheduled from within a running task runs
+ * nested inside it, so deep recursive scheduling grows the stack.
+ */
+public final class ImmediateScheduler extends Scheduler {
+    private static final ImmediateScheduler INSTANCE = new ImmediateScheduler();
+
+    public static ImmediateScheduler instance() {
+        return INSTANCE;
+    }
+
+    ImmediateScheduler() {
+    }
+
+    @NonNull
+    @Override
+    public Disposable scheduleDirect(@NonNull Runnable run) {
+        RxJavaPlugins.onSchedule(run).run();
+        return EmptyDisposable.INSTANCE;
+    }
+
+    @NonNull
+    @Override
+    public Disposable scheduleDirect(@NonNull Runnable run, long delay, TimeUnit unit) {
+        if (delay > 0L && !sleep(delay, unit)) {
+            return EmptyDisposable.INSTANCE;
+        }
+        return scheduleDirect(run);
+    }
+
+    @NonNull
+    @Override
+    public Worker createWorker() {
+        return new ImmediateWorker();
+    }
+
+    static boolean sleep(long delay, TimeUnit unit) {
+        try {
+            unit.sleep(delay);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            RxJavaPlugins.onError(ex);
+            return false;
+        }
+    }
+
+    static final class ImmediateWorker extends Scheduler.Worker {
+
+        volatile boolean disposed;
+
+        @NonNull
+        @Override
+        public Disposable schedule(@NonNull Runnable run) {
+            if (!disposed) {
+                RxJavaPlugins.onSchedule(run).run();
+            }
+            return EmptyDisposable.INSTANCE;
+        }
+
+        @NonNull
+        @Override
+        public Disposable schedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+            if (delay > 0L && (disposed || !sleep(delay, unit))) {
+                return EmptyDisposable.INSTANCE;
+            }
+            return schedule(run);
+        }
+
+        /**
+         * Runs the task at a fixed rate in a loop on the calling thread until the worker is disposed,
+         * instead of rescheduling it from within itself, which would grow the stack with every period.
+         */
+        @NonNull
+        @Override
+        public Disposable schedulePeriodically(@NonNull Runnable run, long initialDelay, long period, @NonNull TimeUnit unit) {
+            Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+            long periodNanos = unit.toNanos(period);
+            long next = System.nanoTime() + unit.toNanos(initialDelay);
+            while (!disposed) {
+                long wait = next - System.nanoTime();
+                if (wait > 0L && !sleep(wait, TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+                if (disposed) {
+                    break;
+                }
+                decoratedRun.run();
+                next += periodNanos;
+            }
+            return EmptyDisposable.INSTANCE;
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
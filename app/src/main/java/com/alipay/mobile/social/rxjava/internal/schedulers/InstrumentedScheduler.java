@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.internal.schedulers;
+
+/**
+ * Live gauges of a Scheduler's pool, read by {@link com.alipay.mobile.social.rxjava.schedulers.SchedulerMetrics}.
+ */
+public interface InstrumentedScheduler {
+
+    /**
+     * @return the number of workers created and not yet disposed
+     */
+    int activeWorkerCount();
+
+    /**
+     * @return the number of threads currently alive in the pool
+     */
+    int threadCount();
+
+    /**
+     * @return the number of tasks waiting in the queue of each thread, including delayed ones
+     */
+    int[] pendingTaskCounts();
+}
@@ -22,42 +22,56 @@ import com.alipay.mobile.social.rxjava.disposables.CompositeDisposable;
 import com.alipay.mobile.social.rxjava.disposables.Disposable;
 import com.alipay.mobile.social.rxjava.internal.disposables.EmptyDisposable;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Scheduler that creates and caches a set of thread pools and reuses them if possible.
  */
-public final class IoScheduler extends Scheduler {
+public final class IoScheduler extends Scheduler implements InstrumentedScheduler {
     private static final String WORKER_THREAD_NAME_PREFIX = "RxCachedThreadScheduler";
     static final RxThreadFactory WORKER_THREAD_FACTORY;
 
     private static final String EVICTOR_THREAD_NAME_PREFIX = "RxCachedWorkerPoolEvictor";
     static final RxThreadFactory EVICTOR_THREAD_FACTORY;
 
-    private static final long KEEP_ALIVE_TIME = 10;
+    /**
+     * The name of the system property for setting the keep-alive time, in seconds, of idle threads.
+     */
+    private static final String KEY_KEEP_ALIVE_TIME = "rx2.io-keep-alive-time";
+    private static final long KEEP_ALIVE_TIME_DEFAULT = 10;
+    static final long KEEP_ALIVE_TIME;
     private static final TimeUnit KEEP_ALIVE_UNIT = TimeUnit.SECONDS;
 
-    static final ThreadWorker SHUTDOWN_THREAD_WORKER;
     private ThreadFactory threadFactory;
     final AtomicReference<CachedWorkerPool> pool;
+    final int maxThreads;
 
     /**
      * The name of the system property for setting the thread priority for this Scheduler.
      */
     private static final String KEY_IO_PRIORITY = "rx2.io-priority";
 
+    /**
+     * The name of the system property for capping the number of threads of this Scheduler.
+     * Zero or less is interpreted as unbounded.
+     */
+    private static final String KEY_MAX_THREADS = "rx2.io-max-threads";
+
+    static final int MAX_THREADS;
+
     static final CachedWorkerPool NONE;
 
     static {
-        SHUTDOWN_THREAD_WORKER = new ThreadWorker(new RxThreadFactory("RxCachedThreadSchedulerShutdown"));
-        SHUTDOWN_THREAD_WORKER.dispose();
+        KEEP_ALIVE_TIME = Math.max(1L, Long.getLong(KEY_KEEP_ALIVE_TIME, KEEP_ALIVE_TIME_DEFAULT));
 
         int priority = Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY,
                 Integer.getInteger(KEY_IO_PRIORITY, Thread.NORM_PRIORITY)));
@@ -66,32 +80,88 @@ public final class IoScheduler extends Scheduler {
 
         EVICTOR_THREAD_FACTORY = new RxThreadFactory(EVICTOR_THREAD_NAME_PREFIX, priority);
 
-        NONE = new CachedWorkerPool(0, null, WORKER_THREAD_FACTORY);
+        MAX_THREADS = Math.max(0, Integer.getInteger(KEY_MAX_THREADS, 0));
+
+        NONE = new CachedWorkerPool(0, null, WORKER_THREAD_FACTORY, 0);
         NONE.shutdown();
     }
 
+    /**
+     * Holds the disposed worker handed out after shutdown, created on demand so that
+     * loading this class doesn't register an executor.
+     */
+    static final class ShutdownThreadWorker {
+        static final ThreadWorker INSTANCE;
+
+        static {
+            INSTANCE = new ThreadWorker(new RxThreadFactory("RxCachedThreadSchedulerShutdown"));
+            INSTANCE.dispose();
+        }
+    }
+
+    /**
+     * Marks the evictor of a pool that has been shut down.
+     */
+    static final ScheduledExecutorService EVICTOR_SHUTDOWN;
+
+    static {
+        EVICTOR_SHUTDOWN = Executors.newScheduledThreadPool(0);
+        EVICTOR_SHUTDOWN.shutdown();
+    }
+
     static final class CachedWorkerPool implements Runnable {
         private final long keepAliveTime;
-        private final ConcurrentLinkedQueue<ThreadWorker> expiringWorkerQueue;
+        /**
+         * Idle threads, most recently released first; the tail holds the one expiring first.
+         */
+        private final ConcurrentLinkedDeque<ThreadWorker> expiringWorkerQueue;
         final CompositeDisposable allWorkers;
-        private final ScheduledExecutorService evictorService;
-        private final Future<?> evictorTask;
+        /**
+         * The evictor, started along with the first thread of this pool.
+         */
+        private final AtomicReference<ScheduledExecutorService> evictorService;
+        private final boolean evictorEnabled;
         private final ThreadFactory threadFactory;
-
-        CachedWorkerPool(long keepAliveTime, TimeUnit unit, ThreadFactory threadFactory) {
+        /**
+         * The maximum number of threads, zero or less means unbounded.
+         */
+        final int maxThreads;
+        /**
+         * The live threads, in use or cached.
+         */
+        final CopyOnWriteArrayList<ThreadWorker> liveWorkers;
+        final AtomicInteger threadCount;
+        final AtomicInteger activeWorkers;
+        final AtomicInteger peakThreadCount;
+
+        CachedWorkerPool(long keepAliveTime, TimeUnit unit, ThreadFactory threadFactory, int maxThreads) {
             this.keepAliveTime = unit != null ? unit.toNanos(keepAliveTime) : 0L;
-            this.expiringWorkerQueue = new ConcurrentLinkedQueue<ThreadWorker>();
+            this.expiringWorkerQueue = new ConcurrentLinkedDeque<ThreadWorker>();
             this.allWorkers = new CompositeDisposable();
             this.threadFactory = threadFactory;
+            this.maxThreads = maxThreads;
+            this.liveWorkers = new CopyOnWriteArrayList<ThreadWorker>();
+            this.threadCount = new AtomicInteger();
+            this.peakThreadCount = new AtomicInteger();
+            this.activeWorkers = new AtomicInteger();
+
+            this.evictorService = new AtomicReference<ScheduledExecutorService>();
+            this.evictorEnabled = unit != null;
+        }
 
-            ScheduledExecutorService evictor = null;
-            Future<?> task = null;
-            if (unit != null) {
-                evictor = Executors.newScheduledThreadPool(1, EVICTOR_THREAD_FACTORY);
-                task = evictor.scheduleWithFixedDelay(this, this.keepAliveTime, this.keepAliveTime, TimeUnit.NANOSECONDS);
+        void startEvictor() {
+            if (evictorEnabled && evictorService.get() == null) {
+                ScheduledExecutorService evictor = Executors.newScheduledThreadPool(1, EVICTOR_THREAD_FACTORY);
+                if (evictorService.compareAndSet(null, evictor)) {
+                    try {
+                        evictor.scheduleWithFixedDelay(this, keepAliveTime, keepAliveTime, TimeUnit.NANOSECONDS);
+                    } catch (RejectedExecutionException ex) {
+                        // shut down concurrently
+                    }
+                } else {
+                    evictor.shutdownNow();
+                }
             }
-            evictorService = evictor;
-            evictorTask = task;
         }
 
         @Override
@@ -100,43 +170,134 @@ public final class IoScheduler extends Scheduler {
         }
 
         ThreadWorker get() {
-            if (allWorkers.isDisposed()) {
-                return SHUTDOWN_THREAD_WORKER;
+            for (;;) {
+                if (allWorkers.isDisposed()) {
+                    return ShutdownThreadWorker.INSTANCE;
+                }
+                while (!expiringWorkerQueue.isEmpty()) {
+                    // LIFO: the most recently used thread is the warmest one
+                    ThreadWorker threadWorker = expiringWorkerQueue.pollFirst();
+                    if (threadWorker != null) {
+                        threadWorker.users.incrementAndGet();
+                        return threadWorker;
+                    }
+                }
+
+                int max = maxThreads;
+                if (max > 0) {
+                    int c = threadCount.get();
+                    if (c >= max) {
+                        ThreadWorker shared = multiplex();
+                        if (shared != null) {
+                            return shared;
+                        }
+                        continue;
+                    }
+                    if (!threadCount.compareAndSet(c, c + 1)) {
+                        continue;
+                    }
+                    updatePeak(c + 1);
+                } else {
+                    updatePeak(threadCount.incrementAndGet());
+                }
+
+                // No cached worker found, so create a new one.
+
+                startEvictor();
+                ThreadWorker worker = new ThreadWorker(threadFactory);
+                worker.users.lazySet(1);
+                liveWorkers.add(worker);
+                allWorkers.add(worker);
+                return worker;
+            }
+        }
+
+        /**
+         * Tries to share the least busy live thread once the thread cap has been reached.
+         * @return the thread worker to share, already accounted for the new user, or null
+         * if the pool changed concurrently and the caller should retry
+         */
+        ThreadWorker multiplex() {
+            ThreadWorker best = null;
+            int bestUsers = Integer.MAX_VALUE;
+            for (ThreadWorker w : liveWorkers) {
+                int u = w.users.get();
+                if (u < bestUsers) {
+                    best = w;
+                    bestUsers = u;
+                }
             }
-            while (!expiringWorkerQueue.isEmpty()) {
-                ThreadWorker threadWorker = expiringWorkerQueue.poll();
-                if (threadWorker != null) {
-                    return threadWorker;
+            if (best == null) {
+                return null;
+            }
+            if (bestUsers == 0) {
+                // idle: take it out of the cache so the evictor can't dispose it under us
+                if (expiringWorkerQueue.remove(best)) {
+                    best.users.incrementAndGet();
+                    return best;
+                }
+                return null;
+            }
+            if (best.users.compareAndSet(bestUsers, bestUsers + 1)) {
+                return best;
+            }
+            return null;
+        }
+
+        void updatePeak(int count) {
+            for (;;) {
+                int p = peakThreadCount.get();
+                if (count <= p || peakThreadCount.compareAndSet(p, count)) {
+                    return;
                 }
             }
+        }
 
-            // No cached worker found, so create a new one.
+        int[] pendingTaskCounts() {
+            Object[] workers = liveWorkers.toArray();
+            int[] pending = new int[workers.length];
+            for (int i = 0; i < workers.length; i++) {
+                pending[i] = ((ThreadWorker) workers[i]).queueSize();
+            }
+            return pending;
+        }
 
-            ThreadWorker worker = new ThreadWorker(threadFactory);
-            allWorkers.add(worker);
-            return worker;
+        int multiplexedWorkers() {
+            int n = 0;
+            for (ThreadWorker w : liveWorkers) {
+                n += Math.max(0, w.users.get() - 1);
+            }
+            return n;
         }
 
         void release(ThreadWorker threadWorker) {
+            if (threadWorker.users.decrementAndGet() != 0) {
+                // still shared by other workers
+                return;
+            }
 
             // Refresh expire time before putting worker back in pool
             threadWorker.setExpirationTime(now() + keepAliveTime);
 
-            expiringWorkerQueue.offer(threadWorker);
+            expiringWorkerQueue.offerFirst(threadWorker);
         }
 
         void evictExpiredWorkers() {
             if (!expiringWorkerQueue.isEmpty()) {
                 long currentTimestamp = now();
 
-                for (ThreadWorker threadWorker : expiringWorkerQueue) {
+                Iterator<ThreadWorker> it = expiringWorkerQueue.descendingIterator();
+                while (it.hasNext()) {
+                    ThreadWorker threadWorker = it.next();
                     if (threadWorker.getExpirationTime() <= currentTimestamp) {
-                        if (expiringWorkerQueue.remove(threadWorker)) {
+                        if (expiringWorkerQueue.removeLastOccurrence(threadWorker)) {
+                            liveWorkers.remove(threadWorker);
+                            threadCount.decrementAndGet();
                             allWorkers.remove(threadWorker);
                         }
                     } else {
-                        // Queue is ordered with the worker that will expire first in the beginning, so when we
-                        // find a non-expired worker we can stop evicting.
+                        // Surplus threads sink to the tail as warm ones are reused from the head, so when
+                        // we find a non-expired worker we can stop evicting.
                         break;
                     }
                 }
@@ -149,11 +310,9 @@ public final class IoScheduler extends Scheduler {
 
         void shutdown() {
             allWorkers.dispose();
-            if (evictorTask != null) {
-                evictorTask.cancel(true);
-            }
-            if (evictorService != null) {
-                evictorService.shutdownNow();
+            ScheduledExecutorService evictor = evictorService.getAndSet(EVICTOR_SHUTDOWN);
+            if (evictor != null) {
+                evictor.shutdownNow();
             }
         }
     }
@@ -167,14 +326,25 @@ public final class IoScheduler extends Scheduler {
      *                      system properties for configuring new thread creation. Cannot be null.
      */
     public IoScheduler(ThreadFactory threadFactory) {
-        this.threadFactory = threadFactory;
+        this(threadFactory, MAX_THREADS);
+    }
+
+    /**
+     * @param threadFactory thread factory to use for creating worker threads. Note that this takes precedence over any
+     *                      system properties for configuring new thread creation. Cannot be null.
+     * @param maxThreads    the maximum number of threads; once reached, new workers share the least busy
+     *                      existing threads. Zero or less means unbounded.
+     */
+    public IoScheduler(ThreadFactory threadFactory, int maxThreads) {
+        this.threadFactory = new OwnedThreadFactory(threadFactory, this);
+        this.maxThreads = maxThreads;
         this.pool = new AtomicReference<CachedWorkerPool>(NONE);
         start();
     }
 
     @Override
     public void start() {
-        CachedWorkerPool update = new CachedWorkerPool(KEEP_ALIVE_TIME, KEEP_ALIVE_UNIT, threadFactory);
+        CachedWorkerPool update = new CachedWorkerPool(KEEP_ALIVE_TIME, KEEP_ALIVE_UNIT, threadFactory, maxThreads);
         if (!pool.compareAndSet(NONE, update)) {
             update.shutdown();
         }
@@ -194,6 +364,11 @@ public final class IoScheduler extends Scheduler {
         }
     }
 
+    @Override
+    public boolean isCurrentThread() {
+        return OwnedThreadFactory.isCurrentThreadOf(this);
+    }
+
     @NonNull
     @Override
     public Worker createWorker() {
@@ -204,52 +379,84 @@ public final class IoScheduler extends Scheduler {
         return pool.get().allWorkers.size();
     }
 
-    static final class EventLoopWorker extends Scheduler.Worker {
-        private final CompositeDisposable tasks;
+    /**
+     * Returns the number of threads currently alive, busy or cached.
+     * @return the current number of threads
+     */
+    @Override
+    public int threadCount() {
+        return pool.get().threadCount.get();
+    }
+
+    /**
+     * Returns the highest number of threads that were alive at the same time.
+     * @return the peak number of threads
+     */
+    public int peakThreadCount() {
+        return pool.get().peakThreadCount.get();
+    }
+
+    /**
+     * Returns the number of active workers sharing a thread with other workers because the
+     * thread cap was reached.
+     * @return the number of multiplexed workers
+     */
+    public int multiplexedWorkerCount() {
+        return pool.get().multiplexedWorkers();
+    }
+
+    @Override
+    public int activeWorkerCount() {
+        return pool.get().activeWorkers.get();
+    }
+
+    @Override
+    public int[] pendingTaskCounts() {
+        return pool.get().pendingTaskCounts();
+    }
+
+    static final class EventLoopWorker extends LeanWorker {
         private final CachedWorkerPool pool;
         private final ThreadWorker threadWorker;
 
-        final AtomicBoolean once = new AtomicBoolean();
-
         EventLoopWorker(CachedWorkerPool pool) {
             this.pool = pool;
-            this.tasks = new CompositeDisposable();
             this.threadWorker = pool.get();
+            pool.activeWorkers.getAndIncrement();
         }
 
         @Override
-        public void dispose() {
-            if (once.compareAndSet(false, true)) {
-                tasks.dispose();
+        protected void onDispose() {
+            pool.activeWorkers.getAndDecrement();
 
-                // releasing the pool should be the last action
-                pool.release(threadWorker);
-            }
-        }
-
-        @Override
-        public boolean isDisposed() {
-            return once.get();
+            // releasing the pool should be the last action
+            pool.release(threadWorker);
         }
 
         @NonNull
         @Override
         public Disposable schedule(@NonNull Runnable action, long delayTime, @NonNull TimeUnit unit) {
-            if (tasks.isDisposed()) {
+            if (disposed) {
                 // don't schedule, we are unsubscribed
                 return EmptyDisposable.INSTANCE;
             }
 
-            return threadWorker.scheduleActual(action, delayTime, unit, tasks);
+            return threadWorker.scheduleActual(action, delayTime, unit, this);
         }
     }
 
     static final class ThreadWorker extends NewThreadWorker {
         private long expirationTime;
 
+        /**
+         * The number of EventLoopWorkers currently bound to this thread.
+         */
+        final AtomicInteger users;
+
         ThreadWorker(ThreadFactory threadFactory) {
             super(threadFactory);
             this.expirationTime = 0L;
+            this.users = new AtomicInteger();
         }
 
         public long getExpirationTime() {
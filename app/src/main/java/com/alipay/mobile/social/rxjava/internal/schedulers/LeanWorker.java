@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.internal.schedulers;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.exceptions.CompositeException;
+import com.alipay.mobile.social.rxjava.exceptions.Exceptions;
+import com.alipay.mobile.social.rxjava.internal.disposables.DisposableContainer;
+import com.alipay.mobile.social.rxjava.internal.util.ExceptionHelper;
+import com.alipay.mobile.social.rxjava.internal.util.OpenHashSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for workers that track their own tasks instead of holding separate composite containers.
+ * <p>
+ * The worker is the container: while at most one task is pending, which is the common case for a
+ * worker behind {@code observeOn}, it sits in a single field and no storage is allocated at all. The
+ * hash set for additional tasks is only created once two tasks are pending at the same time.
+ */
+public abstract class LeanWorker extends Scheduler.Worker implements DisposableContainer {
+
+    /** The first tracked task, guarded by this. */
+    Disposable single;
+
+    /** The other tracked tasks, created on demand and guarded by this. */
+    OpenHashSet<Disposable> others;
+
+    protected volatile boolean disposed;
+
+    @Override
+    public final boolean add(Disposable d) {
+        if (!disposed) {
+            synchronized (this) {
+                if (!disposed) {
+                    if (single == null) {
+                        single = d;
+                    } else {
+                        OpenHashSet<Disposable> set = others;
+                        if (set == null) {
+                            set = new OpenHashSet<Disposable>();
+                            others = set;
+                        }
+                        set.add(d);
+                    }
+                    return true;
+                }
+            }
+        }
+        d.dispose();
+        return false;
+    }
+
+    @Override
+    public final boolean remove(Disposable d) {
+        if (delete(d)) {
+            d.dispose();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public final boolean delete(Disposable d) {
+        if (disposed) {
+            return false;
+        }
+        synchronized (this) {
+            if (disposed) {
+                return false;
+            }
+            if (single == d) {
+                single = null;
+                return true;
+            }
+            OpenHashSet<Disposable> set = others;
+            return set != null && set.remove(d);
+        }
+    }
+
+    @Override
+    public final void dispose() {
+        if (disposed) {
+            return;
+        }
+        Disposable d;
+        OpenHashSet<Disposable> set;
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+            d = single;
+            single = null;
+            set = others;
+            others = null;
+        }
+        try {
+            disposeTasks(d, set);
+        } finally {
+            onDispose();
+        }
+    }
+
+    @Override
+    public final boolean isDisposed() {
+        return disposed;
+    }
+
+    /**
+     * Called once after the pending tasks have been disposed.
+     */
+    protected abstract void onDispose();
+
+    static void disposeTasks(Disposable d, OpenHashSet<Disposable> set) {
+        List<Throwable> errors = null;
+        if (d != null) {
+            try {
+                d.dispose();
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                errors = new ArrayList<Throwable>();
+                errors.add(ex);
+            }
+        }
+        if (set != null) {
+            for (Object o : set.keys()) {
+                if (o instanceof Disposable) {
+                    try {
+                        ((Disposable) o).dispose();
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        if (errors == null) {
+                            errors = new ArrayList<Throwable>();
+                        }
+                        errors.add(ex);
+                    }
+                }
+            }
+        }
+        if (errors != null) {
+            if (errors.size() == 1) {
+                throw ExceptionHelper.wrapOrThrow(errors.get(0));
+            }
+            throw new CompositeException(errors);
+        }
+    }
+}
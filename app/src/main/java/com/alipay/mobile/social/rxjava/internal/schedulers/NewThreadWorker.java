@@ -25,6 +25,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
@@ -71,7 +72,7 @@ public class NewThreadWorker extends Scheduler.Worker implements Disposable {
      */
     @NonNull
     public ScheduledRunnable scheduleActual(final Runnable run, long delayTime, @NonNull TimeUnit unit, @Nullable DisposableContainer parent) {
-        Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+        Runnable decoratedRun = RxJavaPlugins.onSchedule(run, delayTime, unit);
 
         ScheduledRunnable sr = new ScheduledRunnable(decoratedRun, parent);
 
@@ -85,6 +86,8 @@ public class NewThreadWorker extends Scheduler.Worker implements Disposable {
         try {
             if (delayTime <= 0) {
                 f = executor.submit((Callable<Object>) sr);
+            } else if (HashedWheelTimer.ENABLED) {
+                f = HashedWheelTimer.scheduleOn(executor, sr, delayTime, unit);
             } else {
                 f = executor.schedule((Callable<Object>) sr, delayTime, unit);
             }
@@ -108,7 +111,7 @@ public class NewThreadWorker extends Scheduler.Worker implements Disposable {
      * @return the ScheduledRunnable instance
      */
     public Disposable scheduleDirect(final Runnable run, long delayTime, TimeUnit unit) {
-        ScheduledDirectTask task = new ScheduledDirectTask(RxJavaPlugins.onSchedule(run));
+        ScheduledDirectTask task = new ScheduledDirectTask(RxJavaPlugins.onSchedule(run, delayTime, unit));
         try {
             Future<?> f;
             if (delayTime <= 0L) {
@@ -134,7 +137,7 @@ public class NewThreadWorker extends Scheduler.Worker implements Disposable {
      * @return the ScheduledRunnable instance
      */
     public Disposable schedulePeriodicallyDirect(Runnable run, long initialDelay, long period, TimeUnit unit) {
-        final Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+        final Runnable decoratedRun = RxJavaPlugins.onSchedule(run, initialDelay, unit);
         if (period <= 0L) {
 
             InstantPeriodicTask periodicWrapper = new InstantPeriodicTask(decoratedRun, executor);
@@ -164,6 +167,19 @@ public class NewThreadWorker extends Scheduler.Worker implements Disposable {
         }
     }
 
+    /**
+     * Returns the number of tasks queued on the underlying executor, not counting
+     * the one currently running.
+     *
+     * @return the number of queued tasks or 0 if the executor doesn't expose its queue
+     */
+    public int queueSize() {
+        if (executor instanceof ScheduledThreadPoolExecutor) {
+            return ((ScheduledThreadPoolExecutor) executor).getQueue().size();
+        }
+        return 0;
+    }
+
     @Override
     public void dispose() {
         if (!disposed) {
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.internal.schedulers;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Wraps a ThreadFactory and tags the threads it creates with an owner so that
+ * {@link #isCurrentThreadOf(Object)} can tell whether code runs on one of them.
+ */
+public final class OwnedThreadFactory implements ThreadFactory {
+
+    static final ThreadLocal<Object> OWNER = new ThreadLocal<Object>();
+
+    final ThreadFactory actual;
+
+    final Object owner;
+
+    public OwnedThreadFactory(ThreadFactory actual, Object owner) {
+        this.actual = actual;
+        this.owner = owner;
+    }
+
+    @Override
+    public Thread newThread(final Runnable r) {
+        return actual.newThread(new OwnerRunnable(r, owner));
+    }
+
+    /**
+     * Returns true if the current thread was created by an OwnedThreadFactory of the given owner.
+     *
+     * @param owner the owner to check
+     * @return true if the current thread belongs to owner
+     */
+    public static boolean isCurrentThreadOf(Object owner) {
+        return OWNER.get() == owner;
+    }
+
+    /**
+     * Returns the owner of the current thread if it was created by an OwnedThreadFactory.
+     *
+     * @return the owner or null
+     */
+    public static Object currentOwner() {
+        return OWNER.get();
+    }
+
+    @Override
+    public String toString() {
+        return actual.toString();
+    }
+
+    static final class OwnerRunnable implements Runnable {
+        final Runnable actual;
+
+        final Object owner;
+
+        OwnerRunnable(Runnable actual, Object owner) {
+            this.actual = actual;
+            this.owner = owner;
+        }
+
+        @Override
+        public void run() {
+            OWNER.set(owner);
+            actual.run();
+        }
+    }
+}
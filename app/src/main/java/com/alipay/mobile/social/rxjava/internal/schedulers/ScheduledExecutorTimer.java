@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.internal.schedulers;
+
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.internal.disposables.EmptyDisposable;
+import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
+import com.alipay.mobile.social.rxjava.schedulers.DelayTimer;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link DelayTimer} backed by a single-thread ScheduledExecutorService that runs nothing
+ * but timer hand-offs.
+ */
+public final class ScheduledExecutorTimer implements DelayTimer {
+
+    final ScheduledExecutorService executor;
+
+    /**
+     * @param threadFactory the factory for the timer thread, which is started on first use
+     */
+    public ScheduledExecutorTimer(ThreadFactory threadFactory) {
+        this.executor = SchedulerPoolFactory.create(threadFactory);
+    }
+
+    @NonNull
+    @Override
+    public Disposable schedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+        ScheduledDirectTask task = new ScheduledDirectTask(run);
+        try {
+            task.setFuture(executor.schedule(task, delay, unit));
+            return task;
+        } catch (RejectedExecutionException ex) {
+            RxJavaPlugins.onError(ex);
+            return EmptyDisposable.INSTANCE;
+        }
+    }
+
+    /**
+     * Stops the timer thread; pending tasks are dropped.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -31,6 +31,12 @@ import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Manages the creating of ScheduledExecutorServices and sets up purging.
+ * <p>
+ * The purge thread is started by the first {@link #create(ThreadFactory)} call and stops itself
+ * once every registered executor has been shut down; the next create() starts it again.
+ * <p>
+ * With {@code rx2.remove-on-cancel} set to true, the created executors remove cancelled tasks
+ * from their queue immediately, so they are neither registered nor purged periodically.
  */
 public final class SchedulerPoolFactory {
     /**
@@ -49,6 +55,13 @@ public final class SchedulerPoolFactory {
 
     static final String PURGE_PERIOD_SECONDS_KEY = "rx2.purge-period-seconds";
 
+    static final String REMOVE_ON_CANCEL_KEY = "rx2.remove-on-cancel";
+
+    /**
+     * Indicates the created executors remove cancelled tasks right away instead of relying on the purge thread.
+     */
+    public static final boolean REMOVE_ON_CANCEL;
+
     /**
      * Indicates the purge period of the ScheduledExecutorServices created by create().
      */
@@ -63,9 +76,12 @@ public final class SchedulerPoolFactory {
             new ConcurrentHashMap<ScheduledThreadPoolExecutor, Object>();
 
     /**
-     * Starts the purge thread if not already started.
+     * Starts the purge thread if purging is enabled and it is not already started.
      */
     public static void start() {
+        if (!PURGE_ENABLED) {
+            return;
+        }
         for (; ; ) {
             ScheduledExecutorService curr = PURGE_THREAD.get();
             if (curr != null && !curr.isShutdown()) {
@@ -74,7 +90,7 @@ public final class SchedulerPoolFactory {
             ScheduledExecutorService next = Executors.newScheduledThreadPool(1, new RxThreadFactory("RxSchedulerPurge"));
             if (PURGE_THREAD.compareAndSet(curr, next)) {
 
-                next.scheduleAtFixedRate(new ScheduledTask(), PURGE_PERIOD_SECONDS, PURGE_PERIOD_SECONDS, TimeUnit.SECONDS);
+                next.scheduleAtFixedRate(new ScheduledTask(next), PURGE_PERIOD_SECONDS, PURGE_PERIOD_SECONDS, TimeUnit.SECONDS);
 
                 return;
             } else {
@@ -87,10 +103,27 @@ public final class SchedulerPoolFactory {
      * Stops the purge thread.
      */
     public static void shutdown() {
-        PURGE_THREAD.get().shutdownNow();
+        ScheduledExecutorService curr = PURGE_THREAD.getAndSet(null);
+        if (curr != null) {
+            curr.shutdownNow();
+        }
         POOLS.clear();
     }
 
+    /**
+     * Stops the given purge thread if no executors are registered, unless
+     * an executor got registered concurrently.
+     */
+    static void suspendIfIdle(ScheduledExecutorService purge) {
+        if (POOLS.isEmpty() && PURGE_THREAD.compareAndSet(purge, null)) {
+            purge.shutdown();
+            // create() may have registered a pool after the emptiness check but seen the running thread
+            if (!POOLS.isEmpty()) {
+                start();
+            }
+        }
+    }
+
     static {
         boolean purgeEnable = true;
         int purgePeriod = 1;
@@ -105,10 +138,9 @@ public final class SchedulerPoolFactory {
             }
         }
 
-        PURGE_ENABLED = purgeEnable;
+        REMOVE_ON_CANCEL = Boolean.getBoolean(REMOVE_ON_CANCEL_KEY);
+        PURGE_ENABLED = purgeEnable && !REMOVE_ON_CANCEL;
         PURGE_PERIOD_SECONDS = purgePeriod;
-
-        start();
     }
 
     /**
@@ -121,12 +153,23 @@ public final class SchedulerPoolFactory {
         final ScheduledExecutorService exec = Executors.newScheduledThreadPool(1, factory);
         if (exec instanceof ScheduledThreadPoolExecutor) {
             ScheduledThreadPoolExecutor e = (ScheduledThreadPoolExecutor) exec;
-            POOLS.put(e, exec);
+            if (REMOVE_ON_CANCEL) {
+                e.setRemoveOnCancelPolicy(true);
+            } else if (PURGE_ENABLED) {
+                POOLS.put(e, exec);
+                start();
+            }
         }
         return exec;
     }
 
     static final class ScheduledTask implements Runnable {
+        final ScheduledExecutorService purge;
+
+        ScheduledTask(ScheduledExecutorService purge) {
+            this.purge = purge;
+        }
+
         @Override
         public void run() {
             try {
@@ -137,6 +180,7 @@ public final class SchedulerPoolFactory {
                         e.purge();
                     }
                 }
+                suspendIfIdle(purge);
             } catch (Throwable e) {
                 // Exceptions.throwIfFatal(e); nowhere to go
                 RxJavaPlugins.onError(e);
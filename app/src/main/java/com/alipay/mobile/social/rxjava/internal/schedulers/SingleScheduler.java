@@ -25,7 +25,9 @@ import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -33,10 +35,11 @@ import java.util.concurrent.atomic.AtomicReference;
  * A scheduler with a shared, single threaded underlying ScheduledExecutorService.
  * @since 2.0
  */
-public final class SingleScheduler extends Scheduler {
+public final class SingleScheduler extends Scheduler implements InstrumentedScheduler {
 
     final ThreadFactory threadFactory;
     final AtomicReference<ScheduledExecutorService> executor = new AtomicReference<ScheduledExecutorService>();
+    final AtomicInteger activeWorkers = new AtomicInteger();
 
     /** The name of the system property for setting the thread priority for this Scheduler. */
     private static final String KEY_SINGLE_PRIORITY = "rx2.single-priority";
@@ -56,6 +59,13 @@ public final class SingleScheduler extends Scheduler {
         SINGLE_THREAD_FACTORY = new RxThreadFactory(THREAD_NAME_PREFIX, priority, true);
     }
 
+    /**
+     * @return the thread priority of the default single thread, set via {@code rx2.single-priority}
+     */
+    public static int threadPriority() {
+        return SINGLE_THREAD_FACTORY.priority;
+    }
+
     public SingleScheduler() {
         this(SINGLE_THREAD_FACTORY);
     }
@@ -65,8 +75,8 @@ public final class SingleScheduler extends Scheduler {
      *                      system properties for configuring new thread creation. Cannot be null.
      */
     public SingleScheduler(ThreadFactory threadFactory) {
-        this.threadFactory = threadFactory;
-        executor.lazySet(createExecutor(threadFactory));
+        this.threadFactory = new OwnedThreadFactory(threadFactory, this);
+        executor.lazySet(createExecutor(this.threadFactory));
     }
 
     //创建一个具有1个线程的ScheduledExecutorService
@@ -106,16 +116,39 @@ public final class SingleScheduler extends Scheduler {
         }
     }
 
+    @Override
+    public boolean isCurrentThread() {
+        return OwnedThreadFactory.isCurrentThreadOf(this);
+    }
+
+    @Override
+    public int activeWorkerCount() {
+        return activeWorkers.get();
+    }
+
+    @Override
+    public int threadCount() {
+        ScheduledExecutorService current = executor.get();
+        return current instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) current).getPoolSize() : 0;
+    }
+
+    @Override
+    public int[] pendingTaskCounts() {
+        ScheduledExecutorService current = executor.get();
+        int pending = current instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) current).getQueue().size() : 0;
+        return new int[] { pending };
+    }
+
     @NonNull
     @Override
     public Worker createWorker() {
-        return new ScheduledWorker(executor.get());
+        return new ScheduledWorker(executor.get(), activeWorkers);
     }
 
     @NonNull
     @Override
     public Disposable scheduleDirect(@NonNull Runnable run, long delay, TimeUnit unit) {
-        ScheduledDirectTask task = new ScheduledDirectTask(RxJavaPlugins.onSchedule(run));
+        ScheduledDirectTask task = new ScheduledDirectTask(RxJavaPlugins.onSchedule(run, delay, unit));
         try {
             Future<?> f;
             if (delay <= 0L) {
@@ -134,7 +167,7 @@ public final class SingleScheduler extends Scheduler {
     @NonNull
     @Override
     public Disposable schedulePeriodicallyDirect(@NonNull Runnable run, long initialDelay, long period, TimeUnit unit) {
-        final Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+        final Runnable decoratedRun = RxJavaPlugins.onSchedule(run, initialDelay, unit);
         if (period <= 0L) {
 
             ScheduledExecutorService exec = executor.get();
@@ -174,9 +207,13 @@ public final class SingleScheduler extends Scheduler {
 
         volatile boolean disposed;
 
-        ScheduledWorker(ScheduledExecutorService executor) {
+        final AtomicInteger activeWorkers;
+
+        ScheduledWorker(ScheduledExecutorService executor, AtomicInteger activeWorkers) {
             this.executor = executor;
             this.tasks = new CompositeDisposable();
+            this.activeWorkers = activeWorkers;
+            activeWorkers.getAndIncrement();
         }
 
         @NonNull
@@ -186,7 +223,7 @@ public final class SingleScheduler extends Scheduler {
                 return EmptyDisposable.INSTANCE;
             }
 
-            Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+            Runnable decoratedRun = RxJavaPlugins.onSchedule(run, delay, unit);
 
             ScheduledRunnable sr = new ScheduledRunnable(decoratedRun, tasks);
             tasks.add(sr);
@@ -195,6 +232,8 @@ public final class SingleScheduler extends Scheduler {
                 Future<?> f;
                 if (delay <= 0L) {
                     f = executor.submit((Callable<Object>)sr);
+                } else if (HashedWheelTimer.ENABLED) {
+                    f = HashedWheelTimer.scheduleOn(executor, sr, delay, unit);
                 } else {
                     f = executor.schedule((Callable<Object>)sr, delay, unit);
                 }
@@ -214,6 +253,7 @@ public final class SingleScheduler extends Scheduler {
             if (!disposed) {
                 disposed = true;
                 tasks.dispose();
+                activeWorkers.getAndDecrement();
             }
         }
 
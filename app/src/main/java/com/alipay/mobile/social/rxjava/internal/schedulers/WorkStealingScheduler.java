@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.internal.schedulers;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Computation scheduler whose threads each own a deque of ready workers and steal
+ * from each other when idle.
+ * <p>
+ * Every {@link Scheduler.Worker} is an {@link ExecutorScheduler.ExecutorWorker}: its tasks
+ * stay in its own FIFO queue and the worker as a whole is pushed to a thread's deque
+ * whenever it has work. A long task therefore only blocks the worker that issued it; other
+ * ready workers queued behind it are picked up by idle threads.
+ */
+public final class WorkStealingScheduler extends Scheduler {
+
+    private static final String THREAD_NAME_PREFIX = "RxComputationStealingPool";
+
+    final int parallelism;
+
+    final int priority;
+
+    final AtomicReference<ExecutorScheduler> delegate;
+
+    static final ExecutorScheduler NONE;
+
+    static {
+        ForkJoinPool shutdown = new ForkJoinPool(1);
+        shutdown.shutdownNow();
+        NONE = new ExecutorScheduler(shutdown);
+    }
+
+    /**
+     * Create a work-stealing scheduler with as many threads as the
+     * {@link ComputationScheduler} would use.
+     */
+    public WorkStealingScheduler() {
+        this(ComputationScheduler.MAX_THREADS, ComputationScheduler.THREAD_FACTORY.priority);
+    }
+
+    /**
+     * @param parallelism the number of threads, positive
+     * @param priority the thread priority
+     */
+    public WorkStealingScheduler(int parallelism, int priority) {
+        this.parallelism = parallelism;
+        this.priority = priority;
+        this.delegate = new AtomicReference<ExecutorScheduler>(NONE);
+        start();
+    }
+
+    @Override
+    public void start() {
+        ExecutorScheduler next = null;
+        for (;;) {
+            ExecutorScheduler current = delegate.get();
+            if (current != NONE) {
+                if (next != null) {
+                    ((ForkJoinPool) next.executor).shutdownNow();
+                }
+                return;
+            }
+            if (next == null) {
+                next = new ExecutorScheduler(createPool(parallelism, priority, this));
+            }
+            if (delegate.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        ExecutorScheduler current = delegate.getAndSet(NONE);
+        if (current != NONE) {
+            ((ForkJoinPool) current.executor).shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        return OwnedThreadFactory.isCurrentThreadOf(this);
+    }
+
+    @NonNull
+    @Override
+    public Worker createWorker() {
+        return delegate.get().createWorker();
+    }
+
+    @NonNull
+    @Override
+    public Disposable scheduleDirect(@NonNull Runnable run) {
+        return delegate.get().scheduleDirect(run);
+    }
+
+    @NonNull
+    @Override
+    public Disposable scheduleDirect(@NonNull Runnable run, long delay, TimeUnit unit) {
+        return delegate.get().scheduleDirect(run, delay, unit);
+    }
+
+    @NonNull
+    @Override
+    public Disposable schedulePeriodicallyDirect(@NonNull Runnable run, long initialDelay, long period, TimeUnit unit) {
+        return delegate.get().schedulePeriodicallyDirect(run, initialDelay, period, unit);
+    }
+
+    static ForkJoinPool createPool(int parallelism, int priority, Object owner) {
+        // asyncMode: locally pushed workers run in FIFO order, they are never joined
+        return new ForkJoinPool(parallelism, new StealingThreadFactory(priority, owner), null, true);
+    }
+
+    static final class StealingThreadFactory extends AtomicLong
+            implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private static final long serialVersionUID = -2716318622414939427L;
+
+        final int priority;
+
+        final Object owner;
+
+        StealingThreadFactory(int priority, Object owner) {
+            this.priority = priority;
+            this.owner = owner;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread t = new StealingThread(pool, owner);
+            t.setName(THREAD_NAME_PREFIX + "-" + incrementAndGet());
+            t.setPriority(priority);
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    static final class StealingThread extends ForkJoinWorkerThread {
+        final Object owner;
+
+        StealingThread(ForkJoinPool pool, Object owner) {
+            super(pool);
+            this.owner = owner;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            OwnedThreadFactory.OWNER.set(owner);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.internal.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An AtomicLong followed by a cache line worth of padding, so that two separately allocated
+ * instances never share a cache line and a counter updated by one thread doesn't slow down
+ * reads of another counter updated by a different thread.
+ * <p>
+ * Fields of subclasses are laid out after the padding.
+ */
+public class PaddedAtomicLong extends AtomicLong {
+
+    private static final long serialVersionUID = -3480960934516155282L;
+
+    long p1, p2, p3, p4, p5, p6, p7;
+
+    public PaddedAtomicLong() {
+        super();
+    }
+
+    /**
+     * @param initialValue the initial value
+     */
+    public PaddedAtomicLong(long initialValue) {
+        super(initialValue);
+    }
+}
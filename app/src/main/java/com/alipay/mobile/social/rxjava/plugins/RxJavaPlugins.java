@@ -26,11 +26,13 @@ import com.alipay.mobile.social.rxjava.functions.Function;
 import com.alipay.mobile.social.rxjava.internal.functions.ObjectHelper;
 import com.alipay.mobile.social.rxjava.internal.schedulers.IoScheduler;
 import com.alipay.mobile.social.rxjava.internal.util.ExceptionHelper;
+import com.alipay.mobile.social.rxjava.schedulers.SchedulerMetrics;
 import com.alipay.mobile.social.rxjava.schedulers.Schedulers;
 
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class to inject handlers to certain standard RxJava operations.
@@ -65,6 +67,9 @@ public final class RxJavaPlugins {
     @Nullable
     static volatile BiFunction<? super Observable, ? super Observer, ? extends Observer> onObservableSubscribe;
 
+    @Nullable
+    static volatile SchedulerMetrics schedulerMetrics;
+
 
     /**
      * Prevents changing the plugins.
@@ -231,11 +236,50 @@ public final class RxJavaPlugins {
      */
     @NonNull
     public static Runnable onSchedule(@NonNull Runnable run) {
+        return onSchedule(run, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Called when a task is scheduled with a delay.
+     *
+     * @param run   the runnable instance
+     * @param delay the delay the task is scheduled with, for measuring its wait time
+     * @param unit  the unit of the delay
+     * @return the replacement runnable
+     */
+    @NonNull
+    public static Runnable onSchedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
         Function<? super Runnable, ? extends Runnable> f = onScheduleHandler;
-        if (f == null) {
-            return run;
+        if (f != null) {
+            run = apply(f, run);
+        }
+        SchedulerMetrics m = schedulerMetrics;
+        if (m != null) {
+            run = m.wrap(run, delay, unit);
+        }
+        return run;
+    }
+
+    /**
+     * Installs the metrics collector that measures the wait and run time of scheduled tasks.
+     *
+     * @param metrics the collector, null to turn measuring off
+     */
+    public static void setSchedulerMetrics(@Nullable SchedulerMetrics metrics) {
+        if (lockdown) {
+            throw new IllegalStateException("Plugins can't be changed anymore");
         }
-        return apply(f, run);
+        schedulerMetrics = metrics;
+    }
+
+    /**
+     * Returns the installed scheduler metrics collector.
+     *
+     * @return the collector or null if measuring is off
+     */
+    @Nullable
+    public static SchedulerMetrics getSchedulerMetrics() {
+        return schedulerMetrics;
     }
 
 
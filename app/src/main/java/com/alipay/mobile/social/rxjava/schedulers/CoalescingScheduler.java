@@ -0,0 +1,306 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.schedulers;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.internal.disposables.DisposableHelper;
+import com.alipay.mobile.social.rxjava.internal.disposables.EmptyDisposable;
+import com.alipay.mobile.social.rxjava.internal.schedulers.LeanWorker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decorates a Scheduler so that delayed tasks may fire a bit late in exchange for sharing
+ * timer wakeups with other delayed tasks.
+ * <p>
+ * A task delayed by {@code d} may run up to {@code d * slack} late. Its deadline is rounded up
+ * onto a grid whose spacing is the largest power of two (in nanoseconds) not above that slack,
+ * and all tasks of all workers landing on the same grid point share a single timer on the
+ * actual Scheduler. Because the grids are nested, a 5 second delay can share a wakeup with a
+ * 1 second one. When the wakeup fires, each task is handed to its own worker of the actual
+ * Scheduler, so the per-worker ordering and threading guarantees are kept. Non-delayed tasks
+ * and delays whose slack would be under a millisecond go to the actual Scheduler unchanged.
+ */
+public final class CoalescingScheduler extends Scheduler {
+
+    static final long MIN_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    final Scheduler actual;
+
+    final double slack;
+
+    final long origin;
+
+    final ConcurrentHashMap<Long, Wakeup> wakeups;
+
+    final AtomicLong requested;
+
+    final AtomicLong scheduled;
+
+    /**
+     * @param actual the Scheduler running the tasks and the shared timers
+     * @param slack  the fraction of its delay a task may fire late, for example 0.1 for 10%
+     */
+    public CoalescingScheduler(Scheduler actual, double slack) {
+        if (!(slack > 0d)) {
+            throw new IllegalArgumentException("slack > 0 required but it was " + slack);
+        }
+        this.actual = actual;
+        this.slack = slack;
+        this.origin = System.nanoTime();
+        this.wakeups = new ConcurrentHashMap<Long, Wakeup>();
+        this.requested = new AtomicLong();
+        this.scheduled = new AtomicLong();
+    }
+
+    @NonNull
+    @Override
+    public Worker createWorker() {
+        return new CoalescingWorker(actual.createWorker());
+    }
+
+    @Override
+    public void start() {
+        actual.start();
+    }
+
+    @Override
+    public void shutdown() {
+        actual.shutdown();
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        return actual.isCurrentThread();
+    }
+
+    /**
+     * @return the number of delayed tasks that went through the coalescing timers
+     */
+    public long requestedWakeups() {
+        return requested.get();
+    }
+
+    /**
+     * @return the number of timers actually scheduled on the actual Scheduler for those tasks
+     */
+    public long actualWakeups() {
+        return scheduled.get();
+    }
+
+    /**
+     * Returns how many timers on the actual Scheduler were avoided by sharing them between tasks.
+     * <p>
+     * This counts timers, not thread wakeups: each task is still handed to its own worker when
+     * its shared timer fires. A shared timer also fires when all its tasks were disposed.
+     *
+     * @return the number of timers avoided so far
+     */
+    public long wakeupsSaved() {
+        return requested.get() - scheduled.get();
+    }
+
+    /**
+     * Returns the shared wakeup time for a task due at the given time, relative to {@link #origin}.
+     */
+    static long align(long due, long slackNanos) {
+        long grid = Long.highestOneBit(slackNanos);
+        return (due + grid - 1) / grid * grid;
+    }
+
+    void enqueue(CoalescedTask task, long delayNanos, long slackNanos) {
+        requested.getAndIncrement();
+        long now = System.nanoTime();
+        long at = align(now - origin + delayNanos, slackNanos);
+        Long key = at;
+        for (;;) {
+            Wakeup w = wakeups.get(key);
+            if (w == null) {
+                Wakeup created = new Wakeup(key);
+                w = wakeups.putIfAbsent(key, created);
+                if (w == null) {
+                    w = created;
+                    w.add(task);
+                    scheduled.getAndIncrement();
+                    Disposable d;
+                    try {
+                        d = actual.scheduleDirect(w, origin + at - now, TimeUnit.NANOSECONDS);
+                    } catch (Throwable ex) {
+                        reject(w);
+                        throw ex;
+                    }
+                    // a rejecting scheduler may also report to RxJavaPlugins and return a disposed task;
+                    // synchronous ones return one too, but only after the wakeup fired
+                    if (d.isDisposed()) {
+                        reject(w);
+                    }
+                    return;
+                }
+            }
+            if (w.add(task)) {
+                return;
+            }
+            wakeups.remove(key, w);
+        }
+    }
+
+    /**
+     * Drops a wakeup whose timer won't fire, with the tasks that joined it meanwhile, unless it
+     * already fired.
+     */
+    void reject(Wakeup w) {
+        List<CoalescedTask> tasks = w.close();
+        if (tasks != null) {
+            wakeups.remove(w.key, w);
+            scheduled.getAndDecrement();
+            for (CoalescedTask t : tasks) {
+                t.dispose();
+            }
+        }
+    }
+
+    /**
+     * The tasks sharing one timer; once fired, it takes no more tasks and its successor for the
+     * same time is created anew.
+     */
+    final class Wakeup implements Runnable {
+        final Long key;
+
+        /** Guarded by this, null once fired. */
+        List<CoalescedTask> tasks;
+
+        Wakeup(Long key) {
+            this.key = key;
+            this.tasks = new ArrayList<CoalescedTask>();
+        }
+
+        synchronized boolean add(CoalescedTask task) {
+            List<CoalescedTask> list = tasks;
+            if (list == null) {
+                return false;
+            }
+            list.add(task);
+            return true;
+        }
+
+        synchronized List<CoalescedTask> close() {
+            List<CoalescedTask> list = tasks;
+            tasks = null;
+            return list;
+        }
+
+        @Override
+        public void run() {
+            List<CoalescedTask> list = close();
+            if (list == null) {
+                // rejected
+                return;
+            }
+            wakeups.remove(key, this);
+            for (CoalescedTask task : list) {
+                task.fire();
+            }
+        }
+    }
+
+    final class CoalescingWorker extends LeanWorker {
+        final Worker worker;
+
+        CoalescingWorker(Worker worker) {
+            this.worker = worker;
+        }
+
+        @NonNull
+        @Override
+        public Disposable schedule(@NonNull Runnable run) {
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+            return worker.schedule(run);
+        }
+
+        @NonNull
+        @Override
+        public Disposable schedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+            long delayNanos = unit.toNanos(delay);
+            long slackNanos = (long) (delayNanos * slack);
+            if (slackNanos < MIN_SLACK_NANOS) {
+                return worker.schedule(run, delay, unit);
+            }
+            // the actual worker applies the schedule hook once the task is handed over
+            CoalescedTask task = new CoalescedTask(run, this);
+            if (add(task)) {
+                enqueue(task, delayNanos, slackNanos);
+            }
+            return task;
+        }
+
+        @Override
+        public long now(@NonNull TimeUnit unit) {
+            return worker.now(unit);
+        }
+
+        @Override
+        protected void onDispose() {
+            worker.dispose();
+        }
+    }
+
+    /**
+     * A delayed task waiting for its shared wakeup, then holding the actual worker's task.
+     */
+    static final class CoalescedTask extends AtomicReference<Disposable> implements Disposable {
+
+        private static final long serialVersionUID = 4212404215208574375L;
+
+        final Runnable run;
+
+        final CoalescingWorker parent;
+
+        CoalescedTask(Runnable run, CoalescingWorker parent) {
+            this.run = run;
+            this.parent = parent;
+        }
+
+        void fire() {
+            if (isDisposed()) {
+                return;
+            }
+            parent.delete(this);
+            DisposableHelper.replace(this, parent.worker.schedule(run));
+        }
+
+        @Override
+        public void dispose() {
+            if (DisposableHelper.dispose(this)) {
+                parent.delete(this);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return DisposableHelper.isDisposed(get());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.schedulers;
+
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timekeeping service: it runs short tasks on its own thread once their delay elapsed.
+ * <p>
+ * Tasks are expected to hand the actual work over to some executor right away, so a timer
+ * thread can serve many schedulers without adding jitter to each other's delays.
+ */
+public interface DelayTimer {
+
+    /**
+     * Runs the given short task on the timer thread after the given delay.
+     *
+     * @param run   the task to run, should only hand work over to another thread
+     * @param delay the delay amount
+     * @param unit  the unit of the delay
+     * @return the Disposable to cancel the task
+     */
+    @NonNull
+    Disposable schedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit);
+}
@@ -0,0 +1,420 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.schedulers;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.CompositeDisposable;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.exceptions.Exceptions;
+import com.alipay.mobile.social.rxjava.internal.disposables.EmptyDisposable;
+import com.alipay.mobile.social.rxjava.internal.disposables.SequentialDisposable;
+import com.alipay.mobile.social.rxjava.internal.functions.ObjectHelper;
+import com.alipay.mobile.social.rxjava.internal.queue.MpscLinkedQueue;
+import com.alipay.mobile.social.rxjava.internal.schedulers.DisposeOnCancel;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ExecutorScheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ScheduledRunnable;
+import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the work of each key in order while different keys run in parallel on a shared
+ * backing Scheduler, without a thread per key.
+ * <p>
+ * All workers of the same key feed one lane: a serial queue that is drained by a single
+ * backing task at a time. At most {@code maxActiveLanes} lanes are drained concurrently;
+ * other lanes with work wait in a ready queue. A lane is evicted once no worker uses it and
+ * it has nothing left to run.
+ */
+public final class KeyedScheduler extends Scheduler {
+
+    final Scheduler backing;
+
+    final int maxActiveLanes;
+
+    final ConcurrentHashMap<Object, Lane> lanes;
+
+    final ConcurrentLinkedQueue<Lane> ready;
+
+    final AtomicInteger active;
+
+    /**
+     * @param backing        the scheduler the lanes are drained on
+     * @param maxActiveLanes the maximum number of lanes running at the same time, positive
+     */
+    public KeyedScheduler(Scheduler backing, int maxActiveLanes) {
+        if (maxActiveLanes <= 0) {
+            throw new IllegalArgumentException("maxActiveLanes > 0 required but it was " + maxActiveLanes);
+        }
+        this.backing = backing;
+        this.maxActiveLanes = maxActiveLanes;
+        this.lanes = new ConcurrentHashMap<Object, Lane>();
+        this.ready = new ConcurrentLinkedQueue<Lane>();
+        this.active = new AtomicInteger();
+    }
+
+    /**
+     * Creates a worker with a lane of its own.
+     */
+    @NonNull
+    @Override
+    public Worker createWorker() {
+        return createWorker(new Object());
+    }
+
+    /**
+     * Creates a worker whose tasks run in order with the tasks of all other workers of the same key.
+     *
+     * @param key the key, compared by equals/hashCode
+     * @return the new worker
+     */
+    @NonNull
+    public Worker createWorker(@NonNull Object key) {
+        return new KeyedWorker(acquire(ObjectHelper.requireNonNull(key, "key is null")));
+    }
+
+    /**
+     * Returns a Scheduler view whose workers all belong to the given key, for use with
+     * operators such as {@code observeOn} and {@code subscribeOn}.
+     *
+     * @param key the key, compared by equals/hashCode
+     * @return the Scheduler for the key
+     */
+    @NonNull
+    public Scheduler forKey(@NonNull Object key) {
+        return new KeyScheduler(this, ObjectHelper.requireNonNull(key, "key is null"));
+    }
+
+    /**
+     * Returns the number of lanes currently in use.
+     *
+     * @return the number of lanes
+     */
+    public int laneCount() {
+        return lanes.size();
+    }
+
+    Lane acquire(Object key) {
+        for (;;) {
+            Lane lane = lanes.get(key);
+            if (lane == null) {
+                Lane fresh = new Lane(this, key);
+                lane = lanes.putIfAbsent(key, fresh);
+                if (lane == null) {
+                    lane = fresh;
+                }
+            }
+            if (lane.retain()) {
+                return lane;
+            }
+            // lost the race against eviction
+            lanes.remove(key, lane);
+        }
+    }
+
+    void submit(Lane lane) {
+        ready.offer(lane);
+        drainReady();
+    }
+
+    void complete() {
+        active.decrementAndGet();
+        drainReady();
+    }
+
+    void drainReady() {
+        for (;;) {
+            int a = active.get();
+            if (a >= maxActiveLanes || ready.isEmpty()) {
+                return;
+            }
+            if (active.compareAndSet(a, a + 1)) {
+                Lane lane = ready.poll();
+                if (lane == null) {
+                    active.decrementAndGet();
+                } else {
+                    lane.started.set(false);
+                    Disposable d;
+                    try {
+                        d = backing.scheduleDirect(lane);
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        reject(lane);
+                        RxJavaPlugins.onError(ex);
+                        return;
+                    }
+                    // a rejecting scheduler may also report to RxJavaPlugins and return a disposed task;
+                    // synchronous ones return one too, but only after the lane ran
+                    if (d.isDisposed()) {
+                        reject(lane);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the lane and frees its slot if the backing scheduler won't run it, so a later
+     * submit or complete can retry it.
+     */
+    void reject(Lane lane) {
+        if (lane.started.compareAndSet(false, true)) {
+            active.decrementAndGet();
+            ready.offer(lane);
+        }
+    }
+
+    /**
+     * The serial queue of one key; its wip counter is the AtomicInteger it extends.
+     */
+    static final class Lane extends AtomicInteger implements Executor, Runnable {
+
+        private static final long serialVersionUID = 2376826414427327787L;
+
+        final KeyedScheduler parent;
+
+        final Object key;
+
+        final MpscLinkedQueue<Runnable> queue;
+
+        /** Number of workers using this lane, -1 once evicted. */
+        final AtomicInteger refs;
+
+        /** Set when the scheduled drain starts, or when it was rejected and must not start anymore. */
+        final AtomicBoolean started;
+
+        Lane(KeyedScheduler parent, Object key) {
+            this.parent = parent;
+            this.key = key;
+            this.queue = new MpscLinkedQueue<Runnable>();
+            this.refs = new AtomicInteger();
+            this.started = new AtomicBoolean();
+        }
+
+        boolean retain() {
+            for (;;) {
+                int r = refs.get();
+                if (r < 0) {
+                    return false;
+                }
+                if (refs.compareAndSet(r, r + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (refs.decrementAndGet() == 0) {
+                tryEvict();
+            }
+        }
+
+        void tryEvict() {
+            if (get() == 0 && refs.compareAndSet(0, -1)) {
+                parent.lanes.remove(key, this);
+            }
+        }
+
+        @Override
+        public void execute(Runnable run) {
+            queue.offer(run);
+            if (getAndIncrement() == 0) {
+                parent.submit(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            int missed = 1;
+            final MpscLinkedQueue<Runnable> q = queue;
+            try {
+                for (;;) {
+                    for (;;) {
+                        Runnable run = q.poll();
+                        if (run == null) {
+                            break;
+                        }
+                        try {
+                            run.run();
+                        } catch (Throwable ex) {
+                            Exceptions.throwIfFatal(ex);
+                            RxJavaPlugins.onError(ex);
+                        }
+                    }
+
+                    missed = addAndGet(-missed);
+                    if (missed == 0) {
+                        break;
+                    }
+                }
+            } finally {
+                parent.complete();
+            }
+            if (refs.get() == 0) {
+                tryEvict();
+            }
+        }
+    }
+
+    /**
+     * Puts its tasks straight into the lane, so the tasks of all workers of a key run in the
+     * order they were scheduled.
+     */
+    static final class KeyedWorker extends Scheduler.Worker {
+
+        final Lane lane;
+
+        final CompositeDisposable tasks;
+
+        volatile boolean disposed;
+
+        KeyedWorker(Lane lane) {
+            this.lane = lane;
+            this.tasks = new CompositeDisposable();
+        }
+
+        @NonNull
+        @Override
+        public Disposable schedule(@NonNull Runnable run) {
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+
+            Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+            WorkerTask task = new WorkerTask(decoratedRun, this);
+            lane.execute(task);
+            return task;
+        }
+
+        @NonNull
+        @Override
+        public Disposable schedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+            if (delay <= 0) {
+                return schedule(run);
+            }
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+
+            SequentialDisposable first = new SequentialDisposable();
+
+            final SequentialDisposable mar = new SequentialDisposable(first);
+
+            final Runnable decoratedRun = RxJavaPlugins.onSchedule(run, delay, unit);
+
+            ScheduledRunnable sr = new ScheduledRunnable(new SequentialDispose(mar, decoratedRun), tasks);
+            tasks.add(sr);
+
+            Disposable d = ExecutorScheduler.defaultTimer().schedule(sr, delay, unit);
+            sr.setFuture(new DisposeOnCancel(d));
+
+            first.replace(sr);
+
+            return mar;
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                tasks.dispose();
+                lane.release();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        final class SequentialDispose implements Runnable {
+            private final SequentialDisposable mar;
+            private final Runnable decoratedRun;
+
+            SequentialDispose(SequentialDisposable mar, Runnable decoratedRun) {
+                this.mar = mar;
+                this.decoratedRun = decoratedRun;
+            }
+
+            @Override
+            public void run() {
+                mar.replace(schedule(decoratedRun));
+            }
+        }
+    }
+
+    static final class WorkerTask extends AtomicBoolean implements Runnable, Disposable {
+
+        private static final long serialVersionUID = -6494427924418440347L;
+
+        final Runnable actual;
+
+        final KeyedWorker worker;
+
+        WorkerTask(Runnable actual, KeyedWorker worker) {
+            this.actual = actual;
+            this.worker = worker;
+        }
+
+        @Override
+        public void run() {
+            if (get() || worker.disposed) {
+                return;
+            }
+            try {
+                actual.run();
+            } finally {
+                lazySet(true);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            lazySet(true);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return get();
+        }
+    }
+
+    static final class KeyScheduler extends Scheduler {
+
+        final KeyedScheduler parent;
+
+        final Object key;
+
+        KeyScheduler(KeyedScheduler parent, Object key) {
+            this.parent = parent;
+            this.key = key;
+        }
+
+        @NonNull
+        @Override
+        public Worker createWorker() {
+            return parent.createWorker(key);
+        }
+    }
+}
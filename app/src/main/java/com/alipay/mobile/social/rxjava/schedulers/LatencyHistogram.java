@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.schedulers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative durations in nanoseconds with log-linear buckets,
+ * in the spirit of HdrHistogram: every power-of-two range is split into 8 sub-buckets, so a
+ * reported value is within 12.5% of the recorded one across the whole {@code long} range.
+ * <p>
+ * Recording is a few atomic increments; reading is not atomic with respect to concurrent
+ * recording, so a snapshot may be off by the values recorded while it was read.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 3;
+
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    final AtomicLongArray counts;
+
+    final AtomicLong count;
+
+    final AtomicLong sum;
+
+    final AtomicLong max;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Records a duration; negative values are recorded as zero.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long v = Math.max(0L, nanos);
+        counts.incrementAndGet(index(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+        for (;;) {
+            long m = max.get();
+            if (v <= m || max.compareAndSet(m, v)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * @return the largest recorded value in nanoseconds, exact
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @return the mean of the recorded values in nanoseconds, zero if nothing was recorded
+     */
+    public double mean() {
+        long c = count.get();
+        return c == 0L ? 0d : (double) sum.get() / c;
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of the recorded values fall.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value in nanoseconds, zero if nothing was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = 0L;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            snapshot[i] = c;
+            total += c;
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        double p = Math.min(100d, Math.max(0d, percentile));
+        long rank = Math.max(1L, (long) Math.ceil(p / 100d * total));
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalent(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.lazySet(i, 0L);
+        }
+        count.lazySet(0L);
+        sum.lazySet(0L);
+        max.set(0L);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{count=" + count() + ", mean=" + (long) mean() + "ns, p50=" + valueAtPercentile(50)
+                + "ns, p99=" + valueAtPercentile(99) + "ns, p99.9=" + valueAtPercentile(99.9) + "ns, max=" + max() + "ns}";
+    }
+
+    static int index(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowestEquivalent(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index & (SUB_BUCKETS - 1);
+        return ((long) (SUB_BUCKETS + sub)) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long highestEquivalent(int index) {
+        if (index + 1 >= BUCKETS) {
+            return Long.MAX_VALUE;
+        }
+        return lowestEquivalent(index + 1) - 1;
+    }
+}
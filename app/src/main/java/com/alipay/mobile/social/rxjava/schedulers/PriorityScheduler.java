@@ -0,0 +1,348 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.schedulers;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.CompositeDisposable;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.exceptions.Exceptions;
+import com.alipay.mobile.social.rxjava.internal.disposables.EmptyDisposable;
+import com.alipay.mobile.social.rxjava.internal.disposables.SequentialDisposable;
+import com.alipay.mobile.social.rxjava.internal.queue.MpscLinkedQueue;
+import com.alipay.mobile.social.rxjava.internal.schedulers.DisposeOnCancel;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ExecutorScheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ExecutorScheduler.ExecutorWorker.BooleanRunnable;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ScheduledRunnable;
+import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the tasks of its workers on a base Scheduler, highest priority first.
+ * <p>
+ * Each worker has a priority and its own FIFO queue. Workers with pending tasks wait in a
+ * shared priority queue; up to {@code parallelism} drain loops on the base Scheduler repeatedly
+ * take the most urgent worker and run one of its tasks. To keep low priority work from starving,
+ * a worker's urgency grows with the time it has been waiting: one priority level is worth
+ * {@code agingStep} of waiting, so a task waiting that much longer overtakes one a level above it.
+ */
+public final class PriorityScheduler extends Scheduler {
+
+    /** The priority of background work, such as prefetching. */
+    public static final int PRIORITY_LOW = 1;
+
+    /** The default priority. */
+    public static final int PRIORITY_NORMAL = 5;
+
+    /** The priority of work the user is waiting for. */
+    public static final int PRIORITY_HIGH = 10;
+
+    /** The default time a task has to wait to gain one priority level, in milliseconds. */
+    public static final long DEFAULT_AGING_STEP_MILLIS = 100L;
+
+    final Scheduler base;
+
+    final int parallelism;
+
+    final long agingStepNanos;
+
+    final PriorityBlockingQueue<PriorityWorker> ready;
+
+    final AtomicInteger active;
+
+    final AtomicLong sequence;
+
+    /**
+     * @param base        the Scheduler the tasks run on
+     * @param parallelism the maximum number of tasks running at the same time, positive
+     * @param agingStep   the waiting time worth one priority level, positive
+     * @param unit        the unit of the aging step
+     */
+    public PriorityScheduler(Scheduler base, int parallelism, long agingStep, TimeUnit unit) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism > 0 required but it was " + parallelism);
+        }
+        this.base = base;
+        this.parallelism = parallelism;
+        this.agingStepNanos = Math.max(1L, unit.toNanos(agingStep));
+        this.ready = new PriorityBlockingQueue<PriorityWorker>();
+        this.active = new AtomicInteger();
+        this.sequence = new AtomicLong();
+    }
+
+    /**
+     * Creates a worker with {@link #PRIORITY_NORMAL}.
+     */
+    @NonNull
+    @Override
+    public Worker createWorker() {
+        return createWorker(PRIORITY_NORMAL);
+    }
+
+    /**
+     * Creates a worker whose tasks are run with the given priority.
+     *
+     * @param priority the priority, higher runs first
+     * @return the new worker
+     */
+    @NonNull
+    public Worker createWorker(int priority) {
+        return new PriorityWorker(this, priority);
+    }
+
+    /**
+     * Returns a Scheduler view whose workers all have the given priority, for use with
+     * operators such as {@code observeOn} and {@code subscribeOn}.
+     *
+     * @param priority the priority, higher runs first
+     * @return the Scheduler for the priority
+     */
+    @NonNull
+    public Scheduler withPriority(int priority) {
+        return new PriorityView(this, priority);
+    }
+
+    void enqueue(PriorityWorker w) {
+        long now = System.nanoTime();
+        // waiting agingStep longer is worth one priority level; the key doesn't change while queued
+        w.key = now - w.priority * agingStepNanos;
+        w.seq = sequence.getAndIncrement();
+        ready.offer(w);
+        dispatch();
+    }
+
+    void dispatch() {
+        for (;;) {
+            int a = active.get();
+            if (a >= parallelism || ready.isEmpty()) {
+                return;
+            }
+            if (active.compareAndSet(a, a + 1)) {
+                Drain drain = new Drain(this);
+                Disposable d;
+                try {
+                    d = base.scheduleDirect(drain);
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    if (drain.cancel()) {
+                        active.decrementAndGet();
+                    }
+                    RxJavaPlugins.onError(ex);
+                    return;
+                }
+                // a rejecting scheduler may also report to RxJavaPlugins and return a disposed task;
+                // synchronous ones return one too, but only after the drain ran
+                if (d.isDisposed() && drain.cancel()) {
+                    active.decrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs the ready workers while holding one of the parallelism slots; the AtomicBoolean it
+     * extends tells whether it started or was cancelled after a rejection.
+     */
+    static final class Drain extends AtomicBoolean implements Runnable {
+
+        private static final long serialVersionUID = -3181457102834521493L;
+
+        final PriorityScheduler parent;
+
+        Drain(PriorityScheduler parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * @return true if the drain never started and now never will
+         */
+        boolean cancel() {
+            return compareAndSet(false, true);
+        }
+
+        @Override
+        public void run() {
+            if (!compareAndSet(false, true)) {
+                return;
+            }
+            PriorityBlockingQueue<PriorityWorker> q = parent.ready;
+            try {
+                for (;;) {
+                    PriorityWorker w = q.poll();
+                    if (w == null) {
+                        break;
+                    }
+                    w.runOne();
+                }
+            } finally {
+                parent.active.decrementAndGet();
+            }
+            // a worker may have become ready after the last poll
+            parent.dispatch();
+        }
+    }
+
+    static final class PriorityWorker extends Scheduler.Worker implements Comparable<PriorityWorker> {
+
+        final PriorityScheduler parent;
+
+        final int priority;
+
+        final MpscLinkedQueue<Runnable> queue;
+
+        /** Number of pending tasks; the worker is in the ready queue or running while non-zero. */
+        final AtomicInteger wip;
+
+        final CompositeDisposable tasks;
+
+        volatile boolean disposed;
+
+        /** Ordering key, set before every offer to the ready queue. */
+        long key;
+
+        long seq;
+
+        PriorityWorker(PriorityScheduler parent, int priority) {
+            this.parent = parent;
+            this.priority = priority;
+            this.queue = new MpscLinkedQueue<Runnable>();
+            this.wip = new AtomicInteger();
+            this.tasks = new CompositeDisposable();
+        }
+
+        @NonNull
+        @Override
+        public Disposable schedule(@NonNull Runnable run) {
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+
+            Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+            BooleanRunnable br = new BooleanRunnable(decoratedRun);
+
+            queue.offer(br);
+
+            if (wip.getAndIncrement() == 0) {
+                parent.enqueue(this);
+            }
+
+            return br;
+        }
+
+        @NonNull
+        @Override
+        public Disposable schedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+            if (delay <= 0) {
+                return schedule(run);
+            }
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+
+            SequentialDisposable first = new SequentialDisposable();
+
+            final SequentialDisposable mar = new SequentialDisposable(first);
+
+            final Runnable decoratedRun = RxJavaPlugins.onSchedule(run, delay, unit);
+
+            ScheduledRunnable sr = new ScheduledRunnable(new SequentialDispose(mar, decoratedRun), tasks);
+            tasks.add(sr);
+
+            Disposable d = ExecutorScheduler.defaultTimer().schedule(sr, delay, unit);
+            sr.setFuture(new DisposeOnCancel(d));
+
+            first.replace(sr);
+
+            return mar;
+        }
+
+        /**
+         * Runs the oldest pending task and puts this worker back into the ready queue if it has more.
+         */
+        void runOne() {
+            Runnable run = queue.poll();
+            if (run != null && !disposed) {
+                try {
+                    run.run();
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    RxJavaPlugins.onError(ex);
+                }
+            }
+            if (wip.decrementAndGet() != 0) {
+                parent.enqueue(this);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                tasks.dispose();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public int compareTo(PriorityWorker o) {
+            if (key != o.key) {
+                return key < o.key ? -1 : 1;
+            }
+            return seq < o.seq ? -1 : (seq == o.seq ? 0 : 1);
+        }
+
+        final class SequentialDispose implements Runnable {
+            private final SequentialDisposable mar;
+            private final Runnable decoratedRun;
+
+            SequentialDispose(SequentialDisposable mar, Runnable decoratedRun) {
+                this.mar = mar;
+                this.decoratedRun = decoratedRun;
+            }
+
+            @Override
+            public void run() {
+                mar.replace(schedule(decoratedRun));
+            }
+        }
+    }
+
+    static final class PriorityView extends Scheduler {
+
+        final PriorityScheduler parent;
+
+        final int priority;
+
+        PriorityView(PriorityScheduler parent, int priority) {
+            this.parent = parent;
+            this.priority = priority;
+        }
+
+        @NonNull
+        @Override
+        public Worker createWorker() {
+            return parent.createWorker(priority);
+        }
+    }
+}
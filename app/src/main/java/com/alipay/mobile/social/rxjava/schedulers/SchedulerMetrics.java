@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.schedulers;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.annotations.Nullable;
+import com.alipay.mobile.social.rxjava.internal.schedulers.InstrumentedScheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.OwnedThreadFactory;
+import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects per-Scheduler task timings and reads the live gauges of the built-in schedulers.
+ * <p>
+ * Install an instance via {@link RxJavaPlugins#setSchedulerMetrics(SchedulerMetrics)}. Tasks are
+ * then wrapped at the {@link RxJavaPlugins#onSchedule(Runnable, long, TimeUnit)} decoration point
+ * and record, when they run:
+ * <ul>
+ * <li>the wait time: from the moment the task was due (scheduled plus its delay) until it started,</li>
+ * <li>the run time of the task.</li>
+ * </ul>
+ * Timings are attributed to the Scheduler owning the thread the task runs on, which covers
+ * {@link Schedulers#computation()}, {@link Schedulers#io()}, {@link Schedulers#single()} and
+ * {@link Schedulers#computationStealing()}; tasks running elsewhere are recorded under {@code null}.
+ * Nothing is wrapped or recorded while no instance is installed.
+ */
+public final class SchedulerMetrics {
+
+    static final long NOT_DUE = Long.MIN_VALUE;
+
+    static final Object UNATTRIBUTED = new Object();
+
+    /** Set while a measured task runs, so wrapped tasks nested in it aren't counted twice. */
+    static final ThreadLocal<MeasuredRunnable> CURRENT = new ThreadLocal<MeasuredRunnable>();
+
+    final ConcurrentHashMap<Object, TaskTimes> times;
+
+    public SchedulerMetrics() {
+        this.times = new ConcurrentHashMap<Object, TaskTimes>();
+    }
+
+    /**
+     * Wraps a task so that it records its wait and run time; called by {@link RxJavaPlugins}.
+     * Wrapping an already wrapped task only moves its due time.
+     *
+     * @param run   the task
+     * @param delay the delay the task is scheduled with
+     * @param unit  the unit of the delay
+     * @return the measuring task
+     */
+    @NonNull
+    public Runnable wrap(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+        long due = System.nanoTime() + Math.max(0L, unit.toNanos(delay));
+        if (run instanceof MeasuredRunnable) {
+            MeasuredRunnable m = (MeasuredRunnable) run;
+            if (m.parent == this) {
+                m.due = due;
+                return m;
+            }
+        }
+        return new MeasuredRunnable(run, this, due);
+    }
+
+    /**
+     * Returns the histogram of the time tasks waited between being due and starting to run.
+     *
+     * @param scheduler the scheduler, null for tasks run on threads no instrumented scheduler owns
+     * @return the live histogram
+     */
+    @NonNull
+    public LatencyHistogram waitTime(@Nullable Scheduler scheduler) {
+        return timesFor(scheduler).waitTime;
+    }
+
+    /**
+     * Returns the histogram of the run time of tasks.
+     *
+     * @param scheduler the scheduler, null for tasks run on threads no instrumented scheduler owns
+     * @return the live histogram
+     */
+    @NonNull
+    public LatencyHistogram runTime(@Nullable Scheduler scheduler) {
+        return timesFor(scheduler).runTime;
+    }
+
+    /**
+     * @param scheduler the scheduler
+     * @return the number of its workers not yet disposed, -1 if the scheduler doesn't report it
+     */
+    public int activeWorkers(@NonNull Scheduler scheduler) {
+        return scheduler instanceof InstrumentedScheduler ? ((InstrumentedScheduler) scheduler).activeWorkerCount() : -1;
+    }
+
+    /**
+     * @param scheduler the scheduler
+     * @return the number of its live threads, -1 if the scheduler doesn't report it
+     */
+    public int threadCount(@NonNull Scheduler scheduler) {
+        return scheduler instanceof InstrumentedScheduler ? ((InstrumentedScheduler) scheduler).threadCount() : -1;
+    }
+
+    /**
+     * @param scheduler the scheduler
+     * @return the number of tasks waiting on each of its threads, empty if the scheduler doesn't report it
+     */
+    @NonNull
+    public int[] pendingTasks(@NonNull Scheduler scheduler) {
+        return scheduler instanceof InstrumentedScheduler ? ((InstrumentedScheduler) scheduler).pendingTaskCounts() : new int[0];
+    }
+
+    TaskTimes timesFor(Object owner) {
+        Object key = owner != null ? owner : UNATTRIBUTED;
+        TaskTimes t = times.get(key);
+        if (t == null) {
+            TaskTimes fresh = new TaskTimes();
+            t = times.putIfAbsent(key, fresh);
+            if (t == null) {
+                t = fresh;
+            }
+        }
+        return t;
+    }
+
+    static final class TaskTimes {
+        final LatencyHistogram waitTime = new LatencyHistogram();
+
+        final LatencyHistogram runTime = new LatencyHistogram();
+    }
+
+    static final class MeasuredRunnable implements Runnable {
+        final Runnable actual;
+
+        final SchedulerMetrics parent;
+
+        /** The time the next run is due, {@link #NOT_DUE} for the repeated runs of a periodic task. */
+        volatile long due;
+
+        MeasuredRunnable(Runnable actual, SchedulerMetrics parent, long due) {
+            this.actual = actual;
+            this.parent = parent;
+            this.due = due;
+        }
+
+        @Override
+        public void run() {
+            if (CURRENT.get() != null) {
+                actual.run();
+                return;
+            }
+            long start = System.nanoTime();
+            TaskTimes t = parent.timesFor(OwnedThreadFactory.currentOwner());
+            long d = due;
+            if (d != NOT_DUE) {
+                t.waitTime.record(start - d);
+                due = NOT_DUE;
+            }
+            CURRENT.set(this);
+            try {
+                actual.run();
+            } finally {
+                CURRENT.set(null);
+                t.runTime.record(System.nanoTime() - start);
+            }
+        }
+    }
+}
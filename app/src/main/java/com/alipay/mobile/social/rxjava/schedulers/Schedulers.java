@@ -16,16 +16,22 @@ package com.alipay.mobile.social.rxjava.schedulers;
 import com.alipay.mobile.social.rxjava.Scheduler;
 import com.alipay.mobile.social.rxjava.annotations.NonNull;
 import com.alipay.mobile.social.rxjava.functions.Function;
+import com.alipay.mobile.social.rxjava.internal.functions.ObjectHelper;
+import com.alipay.mobile.social.rxjava.internal.schedulers.AdaptiveScheduler;
 import com.alipay.mobile.social.rxjava.internal.schedulers.ComputationScheduler;
 import com.alipay.mobile.social.rxjava.internal.schedulers.ExecutorScheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ImmediateScheduler;
 import com.alipay.mobile.social.rxjava.internal.schedulers.IoScheduler;
 import com.alipay.mobile.social.rxjava.internal.schedulers.SingleScheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.TrampolineScheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.WorkStealingScheduler;
 import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -36,15 +42,27 @@ import java.util.concurrent.ThreadFactory;
  * {@code RxJavaPlugins.set(scheduler name)SchedulerHandler()} respectively.
  * <p>
  * <strong>Supported system properties ({@code System.getProperty()}):</strong>
+ * <ul>
+ * <li>{@code rx2.wheel-timer} (boolean): delayed tasks of the {@link #computation()}, {@link #io()} and {@link #single()}
+ * workers wait on a shared hashed timing wheel with O(1) insert and cancel instead of each executor's delay queue;
+ * the wheel also replaces the {@code RxExecutorTimer} thread of {@link #from(Executor)} schedulers, default is false</li>
+ * <li>{@code rx2.wheel-timer-tick-millis} (long): the tick resolution of that wheel in milliseconds, default is 10</li>
+ * <li>{@code rx2.wheel-timer-size} (int): the number of buckets of that wheel, default is 512</li>
+ * <li>{@code rx2.remove-on-cancel} (boolean): the executors backing the standard schedulers drop cancelled tasks from
+ * their queue immediately, which makes the global {@code RxSchedulerPurge} thread unnecessary, default is false</li>
+ * <li>{@code rx2.adaptive-min-threads}, {@code rx2.adaptive-max-threads} (int): the thread count bounds of an
+ * {@link AdaptiveScheduler}, installed as {@link #io()} via
+ * {@code RxJavaPlugins.setInitIoSchedulerHandler(AdaptiveScheduler.initHandler())}; default is the number of
+ * processors and the larger of 64 and 16 per processor</li>
+ * <li>{@code rx2.adaptive-target-utilization} (int): the CPU utilization in percent that scheduler sizes its pool for,
+ * default is 90</li>
+ * <li>{@code rx2.adaptive-sample-millis} (long): the time between two resizing decisions, default is 1000</li>
+ * <li>{@code rx2.adaptive-priority} (int): the thread priority of that scheduler's threads, default is
+ * {@link Thread#NORM_PRIORITY}</li>
+ * </ul>
  */
 public final class Schedulers {
 
-    static final Scheduler SINGLE;
-
-    static final Scheduler IO;
-
-    static final Scheduler COMPUTATION;
-
     static final class SingleHolder {
         static final Scheduler DEFAULT = new SingleScheduler();
     }
@@ -57,13 +75,25 @@ public final class Schedulers {
         static final Scheduler DEFAULT = new ComputationScheduler();
     }
 
-    static {
+    static final class ComputationStealingHolder {
+        static final Scheduler DEFAULT = new WorkStealingScheduler();
+    }
 
-        SINGLE = RxJavaPlugins.initSingleScheduler(new SingleTask());
+    /*
+     * The standard schedulers are initialized on first use of the respective accessor
+     * so touching this class doesn't construct (and start threads for) unused schedulers.
+     */
 
-        COMPUTATION = RxJavaPlugins.initComputationScheduler(new ComputationTask());
+    static final class Single {
+        static final Scheduler INSTANCE = RxJavaPlugins.initSingleScheduler(new SingleTask());
+    }
 
-        IO = RxJavaPlugins.initIoScheduler(new IOTask());
+    static final class Computation {
+        static final Scheduler INSTANCE = RxJavaPlugins.initComputationScheduler(new ComputationTask());
+    }
+
+    static final class Io {
+        static final Scheduler INSTANCE = RxJavaPlugins.initIoScheduler(new IOTask());
     }
 
     /**
@@ -91,17 +121,21 @@ public final class Schedulers {
      * Unhandled errors will be delivered to the scheduler Thread's {@link Thread.UncaughtExceptionHandler}.
      * <p>
      * You can control certain properties of this standard scheduler via system properties that have to be set
-     * before the {@link Schedulers} class is referenced in your code.
+     * before this method is first called.
      * <p><strong>Supported system properties ({@code System.getProperty()}):</strong>
      * <ul>
      * <li>{@code rx2.io-priority} (int): sets the thread priority of the {@link #io()} Scheduler, default is {@link Thread#NORM_PRIORITY}</li>
+     * <li>{@code rx2.io-max-threads} (int): caps the number of threads of the {@link #io()} Scheduler; once reached, new workers
+     * share the least busy existing threads. Zero or less (default) means unbounded</li>
+     * <li>{@code rx2.io-keep-alive-time} (long): sets the keep-alive time of idle {@link #io()} threads, in seconds, default is 10.
+     * Idle threads are reused most-recently-released first, so threads beyond the working set expire after this time</li>
      * </ul>
      * <p>
      * The default value of this scheduler can be overridden at initialization time via the
      * {@link RxJavaPlugins#setInitIoSchedulerHandler(Function)} plugin method.
      * Note that due to possible initialization cycles, using any of the other scheduler-returning methods will
      * result in a {@code NullPointerException}.
-     * Once the {@link Schedulers} class has been initialized, you can override the returned {@link Scheduler} instance
+     * Once this method has been called, you can override the returned {@link Scheduler} instance
      * via the {@link RxJavaPlugins#setIoSchedulerHandler(Function)} method.
      * <p>
      * It is possible to create a fresh instance of this scheduler with a custom ThreadFactory, via the
@@ -112,7 +146,7 @@ public final class Schedulers {
      * @return a {@link Scheduler} meant for IO-bound work
      */
     public static Scheduler io() {
-        return RxJavaPlugins.onIoScheduler(IO);
+        return RxJavaPlugins.onIoScheduler(Io.INSTANCE);
     }
 
     /**
@@ -131,12 +165,38 @@ public final class Schedulers {
      * not disposing a worker that has timed/delayed tasks not cancelled by other means may leak resources and/or
      * execute those tasks "unexpectedly".
      * <p>
+     * <strong>Supported system properties ({@code System.getProperty()}):</strong>
+     * <ul>
+     * <li>{@code rx2.computation-threads} (int): sets the number of threads in the {@link #computation()} Scheduler, default is the number of available CPUs</li>
+     * <li>{@code rx2.computation-priority} (int): sets the thread priority of the {@link #computation()} Scheduler, default is {@link Thread#NORM_PRIORITY}</li>
+     * <li>{@code rx2.computation-selection} (String): {@code round-robin} (default) or {@code least-loaded}; the latter hands new workers
+     * to the thread with the fewest pending tasks</li>
+     * </ul>
      *
      * @return a {@link Scheduler} meant for computation-bound work
      */
     @NonNull
     public static Scheduler computation() {
-        return RxJavaPlugins.onComputationScheduler(COMPUTATION);
+        return RxJavaPlugins.onComputationScheduler(Computation.INSTANCE);
+    }
+
+    /**
+     * Returns a shared {@link Scheduler} instance intended for bursty computational work
+     * that benefits from work stealing.
+     * <p>
+     * Unlike {@link #computation()}, workers are not pinned to a thread: each worker keeps its tasks
+     * in its own FIFO queue and, whenever it has work, the worker as a whole is placed on a per-thread
+     * deque. Idle threads steal ready workers from busy ones, so a long task only delays the worker
+     * that issued it and not every other worker sharing that thread.
+     * <p>
+     * The number of threads and their priority follow the {@code rx2.computation-threads} and
+     * {@code rx2.computation-priority} system properties. The threads are only started on first use.
+     *
+     * @return a work-stealing {@link Scheduler} meant for computation-bound work
+     */
+    @NonNull
+    public static Scheduler computationStealing() {
+        return ComputationStealingHolder.DEFAULT;
     }
 
     /**
@@ -155,14 +215,167 @@ public final class Schedulers {
      */
     @NonNull
     public static Scheduler single() {
-        return SINGLE;
+        return Single.INSTANCE;
     }
 
+    /**
+     * Returns a new {@link SingleLanesScheduler} with {@code n} independent single-threaded lanes.
+     * <p>
+     * Like {@link #single()}, work on one lane runs strictly in order on that lane's thread, but
+     * unrelated components can use different lanes and no longer queue behind each other. Pick a lane
+     * with {@link SingleLanesScheduler#lane(int)} or {@link SingleLanesScheduler#laneFor(Object)};
+     * the instance's own workers are spread over the lanes round-robin. Lane threads are started on first
+     * use and follow the {@code rx2.single-priority} system property.
+     * <p>
+     * Every call creates new lanes, so keep and share the returned instance.
+     *
+     * @param n the number of lanes
+     * @return the new SingleLanesScheduler
+     */
+    @NonNull
+    public static SingleLanesScheduler singleLanes(int n) {
+        return new SingleLanesScheduler(n);
+    }
+
+    /**
+     * Returns a default, shared {@link Scheduler} instance whose {@link Scheduler.Worker}
+     * instances queue work and execute them in a FIFO manner on the calling thread.
+     * <p>
+     * A task scheduled while another task of the same worker is running is queued and runs after it
+     * instead of nesting, so recursive scheduling (such as {@code interval}) doesn't grow the stack.
+     * Delayed tasks block the calling thread until they are due.
+     * <p>
+     * {@code observeOn} and {@code subscribeOn} with this scheduler don't introduce any queue or worker.
+     *
+     * @return a {@link Scheduler} that queues work on the current thread
+     */
+    @NonNull
+    public static Scheduler trampoline() {
+        return TrampolineScheduler.instance();
+    }
+
+    /**
+     * Returns a default, shared {@link Scheduler} instance that executes work right away on the calling thread.
+     * <p>
+     * Delayed tasks block the calling thread until they are due. A task scheduled from within a running task
+     * runs nested inside it; use {@link #trampoline()} when work schedules itself recursively.
+     * <p>
+     * {@code observeOn} and {@code subscribeOn} with this scheduler don't introduce any queue or worker.
+     *
+     * @return a {@link Scheduler} that executes work immediately on the current thread
+     */
+    @NonNull
+    public static Scheduler immediate() {
+        return ImmediateScheduler.instance();
+    }
+
+    /**
+     * Returns a new {@link KeyedScheduler} that runs the work of each key in order, while
+     * different keys run in parallel on the {@code backing} Scheduler.
+     * <p>
+     * Workers are created per key via {@link KeyedScheduler#createWorker(Object)}, or through
+     * {@link KeyedScheduler#forKey(Object)} for use with {@code observeOn}/{@code subscribeOn}.
+     * No thread is created per key: each key's tasks go through a lightweight serial queue
+     * that is drained on the backing Scheduler, and the queue is dropped once the key has no
+     * workers and no pending tasks.
+     *
+     * @param backing the Scheduler the keys' work runs on
+     * @param lanes   the maximum number of keys running at the same time
+     * @return the new KeyedScheduler
+     */
+    @NonNull
+    public static KeyedScheduler keyed(@NonNull Scheduler backing, int lanes) {
+        return new KeyedScheduler(ObjectHelper.requireNonNull(backing, "backing is null"), lanes);
+    }
+
+    /**
+     * Returns a new {@link CoalescingScheduler} that lets delayed tasks on {@code actual} fire up to
+     * {@code slack} times their delay late, so that nearby deadlines of all its workers share timer wakeups.
+     * <p>
+     * For example with a slack of {@code 0.1}, streams using {@code interval} or {@code delay} with periods of
+     * 1, 5 and 30 seconds wake up together instead of each on its own timer. Tasks still run on the workers
+     * of {@code actual}; {@link CoalescingScheduler#wakeupsSaved()} reports the timers avoided so far.
+     *
+     * @param actual the Scheduler to decorate
+     * @param slack  the fraction of its delay a task may fire late, positive
+     * @return the new CoalescingScheduler
+     */
+    @NonNull
+    public static CoalescingScheduler coalescing(@NonNull Scheduler actual, double slack) {
+        return new CoalescingScheduler(ObjectHelper.requireNonNull(actual, "actual is null"), slack);
+    }
+
+    /**
+     * Returns a new {@link PriorityScheduler} that runs at most {@code parallelism} tasks at a time on
+     * {@code base}; whenever a slot frees up, the pending task of the most urgent worker runs next.
+     * <p>
+     * Workers carry a priority, given via {@link PriorityScheduler#createWorker(int)} or through
+     * {@link PriorityScheduler#withPriority(int)} for use with {@code observeOn}/{@code subscribeOn}.
+     * Each worker still runs its own tasks in order. Waiting tasks age, gaining one priority level
+     * every {@link PriorityScheduler#DEFAULT_AGING_STEP_MILLIS} milliseconds, so low priority work
+     * is delayed but never starved.
+     * <p>
+     * There is no default for {@code parallelism}: it caps how many tasks may block at once, so
+     * a CPU-bound base wants about one per core while a blocking base such as {@link #io()}
+     * needs as many as the I/O it should keep in flight.
+     *
+     * @param base        the Scheduler the tasks run on
+     * @param parallelism the maximum number of tasks running at the same time, positive
+     * @return the new PriorityScheduler
+     */
+    @NonNull
+    public static PriorityScheduler prioritized(@NonNull Scheduler base, int parallelism) {
+        return new PriorityScheduler(ObjectHelper.requireNonNull(base, "base is null"), parallelism,
+                PriorityScheduler.DEFAULT_AGING_STEP_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wraps an {@link Executor} into a new Scheduler instance.
+     * <p>
+     * By default a worker keeps its executor thread until its queue is empty. The
+     * {@code rx2.executor-max-tasks-per-run} and {@code rx2.executor-time-slice-micros} system
+     * properties bound that, see {@link #from(Executor, int, long, TimeUnit)}.
+     *
+     * @param executor the executor to wrap
+     * @return the new Scheduler wrapping the Executor
+     */
     @NonNull
     public static Scheduler from(@NonNull Executor executor) {
         return new ExecutorScheduler(executor);
     }
 
+    /**
+     * Wraps an {@link Executor} into a new Scheduler instance whose workers share the executor's
+     * threads fairly: once a worker has run {@code maxTasksPerRun} tasks or used up {@code timeSlice}
+     * in one go, it re-submits itself to the executor behind the other waiting workers.
+     *
+     * @param executor       the executor to wrap
+     * @param maxTasksPerRun the task budget per turn, zero or less for unbounded
+     * @param timeSlice      the time budget per turn, zero or less for unbounded
+     * @param unit           the unit of the time budget
+     * @return the new Scheduler wrapping the Executor
+     */
+    @NonNull
+    public static Scheduler from(@NonNull Executor executor, int maxTasksPerRun, long timeSlice, @NonNull TimeUnit unit) {
+        return new ExecutorScheduler(executor, maxTasksPerRun, timeSlice, unit);
+    }
+
+    /**
+     * Wraps an {@link Executor} into a new Scheduler instance whose delayed tasks are timed by
+     * the given {@link DelayTimer} when the executor is not a {@link ScheduledExecutorService}.
+     * <p>
+     * By default such delays run on a timer thread shared by all executor-backed schedulers,
+     * which only hands due tasks back to their executors.
+     *
+     * @param executor the executor to wrap
+     * @param timer    the timer for delayed tasks
+     * @return the new Scheduler wrapping the Executor
+     */
+    @NonNull
+    public static Scheduler from(@NonNull Executor executor, @NonNull DelayTimer timer) {
+        return new ExecutorScheduler(executor, ObjectHelper.requireNonNull(timer, "timer is null"));
+    }
+
     static final class SingleTask implements Callable<Scheduler> {
         @Override
         public Scheduler call() throws Exception {
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.schedulers;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.internal.schedulers.RxThreadFactory;
+import com.alipay.mobile.social.rxjava.internal.schedulers.SingleScheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed set of independent single-threaded lanes, each one a {@link SingleScheduler}.
+ * <p>
+ * Work on the same lane runs in order on that lane's thread; different lanes don't wait for
+ * each other. Callers pick a lane explicitly via {@link #lane(int)} or by key via
+ * {@link #laneFor(Object)}. Lanes and their threads are created on first use.
+ */
+public final class SingleLanesScheduler extends Scheduler {
+
+    private static final String THREAD_NAME_PREFIX = "RxSingleLane";
+
+    final AtomicReferenceArray<SingleScheduler> lanes;
+
+    final int priority;
+
+    final AtomicLong index;
+
+    /**
+     * @param lanes the number of lanes, positive
+     */
+    public SingleLanesScheduler(int lanes) {
+        this(lanes, SingleScheduler.threadPriority());
+    }
+
+    /**
+     * @param lanes    the number of lanes, positive
+     * @param priority the priority of the lane threads
+     */
+    public SingleLanesScheduler(int lanes, int priority) {
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("lanes > 0 required but it was " + lanes);
+        }
+        this.lanes = new AtomicReferenceArray<SingleScheduler>(lanes);
+        this.priority = priority;
+        this.index = new AtomicLong();
+    }
+
+    /**
+     * @return the number of lanes
+     */
+    public int laneCount() {
+        return lanes.length();
+    }
+
+    /**
+     * Returns the lane with the given index.
+     *
+     * @param index the lane index, between 0 and {@link #laneCount()} - 1
+     * @return the lane's Scheduler
+     */
+    @NonNull
+    public Scheduler lane(int index) {
+        if (index < 0 || index >= lanes.length()) {
+            throw new IndexOutOfBoundsException("index: " + index + ", lanes: " + lanes.length());
+        }
+        SingleScheduler s = lanes.get(index);
+        if (s == null) {
+            SingleScheduler created = new SingleScheduler(
+                    new RxThreadFactory(THREAD_NAME_PREFIX + "-" + index, priority, true));
+            if (lanes.compareAndSet(index, null, created)) {
+                return created;
+            }
+            created.shutdown();
+            s = lanes.get(index);
+        }
+        return s;
+    }
+
+    /**
+     * Returns the lane of the given key; equal keys always get the same lane.
+     *
+     * @param key the key, compared by hashCode
+     * @return the lane's Scheduler
+     */
+    @NonNull
+    public Scheduler laneFor(@NonNull Object key) {
+        int h = key.hashCode();
+        // spread the high bits so keys differing only there don't pile up on one lane
+        h ^= (h >>> 16);
+        return lane((h & Integer.MAX_VALUE) % lanes.length());
+    }
+
+    /**
+     * Creates a worker on the next lane in round-robin order.
+     */
+    @NonNull
+    @Override
+    public Worker createWorker() {
+        return nextLane().createWorker();
+    }
+
+    @NonNull
+    @Override
+    public Disposable scheduleDirect(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+        return nextLane().scheduleDirect(run, delay, unit);
+    }
+
+    @NonNull
+    @Override
+    public Disposable schedulePeriodicallyDirect(@NonNull Runnable run, long initialDelay, long period, @NonNull TimeUnit unit) {
+        return nextLane().schedulePeriodicallyDirect(run, initialDelay, period, unit);
+    }
+
+    Scheduler nextLane() {
+        return lane((int) ((index.getAndIncrement() & Long.MAX_VALUE) % lanes.length()));
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        for (int i = 0; i < lanes.length(); i++) {
+            SingleScheduler s = lanes.get(i);
+            if (s != null && s.isCurrentThread()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void start() {
+        for (int i = 0; i < lanes.length(); i++) {
+            SingleScheduler s = lanes.get(i);
+            if (s != null) {
+                s.start();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        for (int i = 0; i < lanes.length(); i++) {
+            SingleScheduler s = lanes.get(i);
+            if (s != null) {
+                s.shutdown();
+            }
+        }
+    }
+}
@@ -46,20 +46,21 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public final class PublishSubject<T> extends Subject<T> {
     /**
-     * The terminated indicator for the subscribers array.
+     * The terminated indicator for the subscribers.
      */
-    @SuppressWarnings("rawtypes")
-    static final PublishDisposable[] TERMINATED = new PublishDisposable[0];
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final Subscribers TERMINATED = new Subscribers(new PublishDisposable[0], 0, 0);
     /**
-     * An empty subscribers array to avoid allocating it all the time.
+     * An empty subscribers snapshot to avoid allocating it all the time.
      */
-    @SuppressWarnings("rawtypes")
-    static final PublishDisposable[] EMPTY = new PublishDisposable[0];
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final Subscribers EMPTY = new Subscribers(new PublishDisposable[0], 0, 0);
 
     /**
-     * The array of currently subscribed subscribers.
+     * The current snapshot of the subscribers; replaced, while holding its own monitor, on every
+     * subscribe and dispose, and swapped for {@link #TERMINATED} on a terminal event.
      */
-    final AtomicReference<PublishDisposable<T>[]> subscribers;
+    final AtomicReference<Subscribers<T>> subscribers;
 
     /**
      * The error, write before terminating and read after checking subscribers.
@@ -83,7 +84,7 @@ public final class PublishSubject<T> extends Subject<T> {
      */
     @SuppressWarnings("unchecked")
     PublishSubject() {
-        subscribers = new AtomicReference<PublishDisposable<T>[]>(EMPTY);
+        subscribers = new AtomicReference<Subscribers<T>>(EMPTY);
     }
 
 
@@ -110,68 +111,91 @@ public final class PublishSubject<T> extends Subject<T> {
     /**
      * Tries to add the given subscriber to the subscribers array atomically
      * or returns false if the subject has terminated.
+     * <p>
+     * Amortized O(1): the array is shared by the snapshots and only copied when it's full;
+     * snapshots never look past their own size.
      *
      * @param ps the subscriber to add
      * @return true if successful, false if the subject has terminated
      */
     boolean add(PublishDisposable<T> ps) {
-        for (; ; ) {
-            PublishDisposable<T>[] a = subscribers.get();
-            if (a == TERMINATED) {
+        // the monitor orders the writes into the shared array and the subscribers' indexes;
+        // the CAS publishes the snapshot to the lock-free onNext and races only with termination
+        synchronized (subscribers) {
+            Subscribers<T> current = subscribers.get();
+            if (current == TERMINATED) {
                 return false;
             }
-
-            int n = a.length;
-            @SuppressWarnings("unchecked")
-            PublishDisposable<T>[] b = new PublishDisposable[n + 1];
-            System.arraycopy(a, 0, b, 0, n);
-            b[n] = ps;
-
-            if (subscribers.compareAndSet(a, b)) {
-                return true;
+            PublishDisposable<T>[] a = current.array;
+            int size = current.size;
+            if (size == a.length) {
+                a = compact(current, Math.max(4, current.count * 2));
+                size = current.count;
             }
+            ps.index = size;
+            a[size] = ps;
+            // fails only if a terminal event swapped in TERMINATED meanwhile
+            return subscribers.compareAndSet(current, new Subscribers<T>(a, size + 1, current.count + 1));
         }
     }
 
     /**
      * Atomically removes the given subscriber if it is subscribed to the subject.
+     * <p>
+     * Amortized O(1): the subscriber's slot is left as a hole, which snapshots iterating concurrently
+     * skip either way as the subscriber is disposed, and the array is compacted once holes outnumber
+     * subscribers and there are more than {@link #COMPACT_THRESHOLD} of them.
      *
      * @param ps the subject to remove
      */
     @SuppressWarnings("unchecked")
     void remove(PublishDisposable<T> ps) {
-        for (; ; ) {
-            PublishDisposable<T>[] a = subscribers.get();
-            if (a == TERMINATED || a == EMPTY) {
+        synchronized (subscribers) {
+            Subscribers<T> current = subscribers.get();
+            if (current == TERMINATED || current == EMPTY) {
                 return;
             }
-
-            int n = a.length;
-            int j = -1;
-            for (int i = 0; i < n; i++) {
-                if (a[i] == ps) {
-                    j = i;
-                    break;
-                }
-            }
-
-            if (j < 0) {
+            PublishDisposable<T>[] a = current.array;
+            int i = ps.index;
+            if (i < 0 || i >= current.size || a[i] != ps) {
                 return;
             }
-
-            PublishDisposable<T>[] b;
-
-            if (n == 1) {
-                b = EMPTY;
+            a[i] = null;
+            ps.index = -1;
+            int count = current.count - 1;
+            Subscribers<T> next;
+            if (count == 0) {
+                next = EMPTY;
+            } else if (current.size - count > COMPACT_THRESHOLD && count * 2 < current.size) {
+                // over the threshold and more holes than subscribers: copy the live ones into a right-sized array
+                next = new Subscribers<T>(compact(current, count * 2), count, count);
             } else {
-                b = new PublishDisposable[n - 1];
-                System.arraycopy(a, 0, b, 0, j);
-                System.arraycopy(a, j + 1, b, j, n - j - 1);
+                next = new Subscribers<T>(a, current.size, count);
             }
-            if (subscribers.compareAndSet(a, b)) {
-                return;
+            subscribers.compareAndSet(current, next);
+        }
+    }
+
+    /** The number of holes tolerated before a removal compacts the array. */
+    static final int COMPACT_THRESHOLD = 16;
+
+    /**
+     * Copies the subscribers of the snapshot into a new array of the given capacity without holes and
+     * updates their indexes; the caller holds the monitor.
+     */
+    static <T> PublishDisposable<T>[] compact(Subscribers<T> current, int capacity) {
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        PublishDisposable<T>[] b = new PublishDisposable[capacity];
+        PublishDisposable<T>[] a = current.array;
+        int j = 0;
+        for (int i = 0; i < current.size; i++) {
+            PublishDisposable<T> ps = a[i];
+            if (ps != null) {
+                ps.index = j;
+                b[j++] = ps;
             }
         }
+        return b;
     }
 
     @Override
@@ -190,9 +214,7 @@ public final class PublishSubject<T> extends Subject<T> {
             onError(new NullPointerException("onNext called with null. Null values are generally not allowed in 2.x operators and sources."));
             return;
         }
-        for (PublishDisposable<T> s : subscribers.get()) {
-            s.onNext(t);
-        }
+        subscribers.get().onNext(t);
     }
 
     @SuppressWarnings("unchecked")
@@ -207,8 +229,13 @@ public final class PublishSubject<T> extends Subject<T> {
         }
         error = t;
 
-        for (PublishDisposable<T> s : subscribers.getAndSet(TERMINATED)) {
-            s.onError(t);
+        Subscribers<T> current = subscribers.getAndSet(TERMINATED);
+        PublishDisposable<T>[] a = current.array;
+        for (int i = 0, n = current.size; i < n; i++) {
+            PublishDisposable<T> s = a[i];
+            if (s != null) {
+                s.onError(t);
+            }
         }
     }
 
@@ -218,14 +245,19 @@ public final class PublishSubject<T> extends Subject<T> {
         if (subscribers.get() == TERMINATED) {
             return;
         }
-        for (PublishDisposable<T> s : subscribers.getAndSet(TERMINATED)) {
-            s.onComplete();
+        Subscribers<T> current = subscribers.getAndSet(TERMINATED);
+        PublishDisposable<T>[] a = current.array;
+        for (int i = 0, n = current.size; i < n; i++) {
+            PublishDisposable<T> s = a[i];
+            if (s != null) {
+                s.onComplete();
+            }
         }
     }
 
     @Override
     public boolean hasObservers() {
-        return subscribers.get().length != 0;
+        return subscribers.get().count != 0;
     }
 
     @Override
@@ -246,6 +278,38 @@ public final class PublishSubject<T> extends Subject<T> {
         return subscribers.get() == TERMINATED && error == null;
     }
 
+    /**
+     * An immutable view of the registry: the first {@code size} slots of a possibly shared array,
+     * with holes (nulls) left by removed subscribers.
+     *
+     * @param <T> the value type
+     */
+    static final class Subscribers<T> {
+        final PublishDisposable<T>[] array;
+
+        /** The number of slots this snapshot covers, including holes. */
+        final int size;
+
+        /** The number of subscribers. */
+        final int count;
+
+        Subscribers(PublishDisposable<T>[] array, int size, int count) {
+            this.array = array;
+            this.size = size;
+            this.count = count;
+        }
+
+        void onNext(T t) {
+            PublishDisposable<T>[] a = array;
+            for (int i = 0, n = size; i < n; i++) {
+                PublishDisposable<T> s = a[i];
+                if (s != null) {
+                    s.onNext(t);
+                }
+            }
+        }
+    }
+
     /**
      * Wraps the actual subscriber, tracks its requests and makes cancellation
      * to remove itself from the current subscribers array.
@@ -263,6 +327,10 @@ public final class PublishSubject<T> extends Subject<T> {
          * The subject state.
          */
         final PublishSubject<T> parent;
+        /**
+         * The slot of this subscriber in the registry's array, -1 if not in it; guarded by the registry's monitor.
+         */
+        int index = -1;
 
         /**
          * Constructs a PublishSubscriber, wraps the actual subscriber and the state.
@@ -0,0 +1,328 @@
+/**
+ * Copyright (c) 2016-present, RxJava Contributors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.alipay.mobile.social.rxjava.subjects;
+
+import com.alipay.mobile.social.rxjava.Observable;
+import com.alipay.mobile.social.rxjava.Observer;
+import com.alipay.mobile.social.rxjava.annotations.NonNull;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.exceptions.Exceptions;
+import com.alipay.mobile.social.rxjava.internal.functions.ObjectHelper;
+import com.alipay.mobile.social.rxjava.plugins.RxJavaPlugins;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An event bus that indexes its observers by event type and topic, so an event is only
+ * delivered to the observers interested in it.
+ * <p>
+ * Each subscribed type, or topic and type pair, gets its own {@link PublishSubject}. Posting an event
+ * looks up the channels of the event's class, its superclasses and its interfaces (this list is
+ * computed once per event class and cached) and emits to those with observers, so the cost is
+ * O(matching observers) instead of O(all observers).
+ * <p>
+ * Example usage:
+ * <pre> {@code
+ *
+ * RxBus bus = RxBus.create();
+ * bus.ofType(LoginEvent.class).subscribe(e -> showWelcome(e.user));
+ * bus.ofTopic("cart", ItemAdded.class).subscribe(e -> updateBadge());
+ *
+ * bus.post(new LoginEvent(user));
+ * bus.post("cart", new ItemAdded(item));
+ * } </pre>
+ * <p>
+ * Posting is thread-safe: concurrent posts to the same channel are serialized, so each observer
+ * still receives its events one at a time. An exception thrown by an observer's {@code onNext} goes
+ * to {@link RxJavaPlugins#onError(Throwable)}; the event still reaches the other observers and the
+ * observer stays subscribed. The bus never terminates, and a channel stays indexed
+ * once created, which is fine for the bounded set of event types an app uses.
+ */
+public final class RxBus {
+
+    /** The channels of the events posted without a topic, keyed by the event Class. */
+    final ConcurrentHashMap<Class<?>, Channel> channels;
+
+    /** The channels of the events posted to a topic, keyed by the topic and then by the event Class. */
+    final ConcurrentHashMap<String, ConcurrentHashMap<Class<?>, Channel>> topics;
+
+    /** The classes an event of the key class is delivered to: itself, its superclasses and its interfaces. */
+    final ConcurrentHashMap<Class<?>, Class<?>[]> hierarchies;
+
+    /**
+     * Creates a new, empty RxBus.
+     *
+     * @return the new RxBus
+     */
+    @NonNull
+    public static RxBus create() {
+        return new RxBus();
+    }
+
+    RxBus() {
+        this.channels = new ConcurrentHashMap<Class<?>, Channel>();
+        this.topics = new ConcurrentHashMap<String, ConcurrentHashMap<Class<?>, Channel>>();
+        this.hierarchies = new ConcurrentHashMap<Class<?>, Class<?>[]>();
+    }
+
+    /**
+     * Posts the event to the observers of its class, superclasses and interfaces that were
+     * subscribed without a topic.
+     *
+     * @param event the event to post, not null
+     */
+    public void post(@NonNull Object event) {
+        ObjectHelper.requireNonNull(event, "event is null");
+        for (Class<?> type : hierarchy(event.getClass())) {
+            Channel c = channels.get(type);
+            if (c != null) {
+                c.post(event);
+            }
+        }
+    }
+
+    /**
+     * Posts the event to the observers of the given topic and of the event's class, superclasses
+     * or interfaces.
+     *
+     * @param topic the topic, not null
+     * @param event the event to post, not null
+     */
+    public void post(@NonNull String topic, @NonNull Object event) {
+        ObjectHelper.requireNonNull(topic, "topic is null");
+        ObjectHelper.requireNonNull(event, "event is null");
+        ConcurrentHashMap<Class<?>, Channel> topicChannels = topics.get(topic);
+        if (topicChannels != null) {
+            for (Class<?> type : hierarchy(event.getClass())) {
+                Channel c = topicChannels.get(type);
+                if (c != null) {
+                    c.post(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns an Observable of the events posted without a topic that are instances of the given type.
+     *
+     * @param type the type of the events, not null
+     * @param <T>  the event type
+     * @return the Observable of the events
+     */
+    @NonNull
+    public <T> Observable<T> ofType(@NonNull Class<T> type) {
+        ObjectHelper.requireNonNull(type, "type is null");
+        return channel(channels, type).events();
+    }
+
+    /**
+     * Returns an Observable of the events posted to the given topic that are instances of the given type.
+     *
+     * @param topic the topic, not null
+     * @param type  the type of the events, not null; {@code Object.class} for all events of the topic
+     * @param <T>   the event type
+     * @return the Observable of the events
+     */
+    @NonNull
+    public <T> Observable<T> ofTopic(@NonNull String topic, @NonNull Class<T> type) {
+        ObjectHelper.requireNonNull(topic, "topic is null");
+        ObjectHelper.requireNonNull(type, "type is null");
+        ConcurrentHashMap<Class<?>, Channel> topicChannels = topics.get(topic);
+        if (topicChannels == null) {
+            ConcurrentHashMap<Class<?>, Channel> created = new ConcurrentHashMap<Class<?>, Channel>();
+            topicChannels = topics.putIfAbsent(topic, created);
+            if (topicChannels == null) {
+                topicChannels = created;
+            }
+        }
+        return channel(topicChannels, type).events();
+    }
+
+    /**
+     * Returns true if an event of the given type, posted without a topic, would reach any observer.
+     *
+     * @param type the event type, not null
+     * @return true if there are matching observers
+     */
+    public boolean hasObservers(@NonNull Class<?> type) {
+        for (Class<?> c : hierarchy(type)) {
+            Channel ch = channels.get(c);
+            if (ch != null && ch.subject.hasObservers()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Channel channel(ConcurrentHashMap<Class<?>, Channel> map, Class<?> type) {
+        Channel c = map.get(type);
+        if (c == null) {
+            Channel created = new Channel();
+            c = map.putIfAbsent(type, created);
+            if (c == null) {
+                c = created;
+            }
+        }
+        return c;
+    }
+
+    Class<?>[] hierarchy(Class<?> type) {
+        Class<?>[] h = hierarchies.get(type);
+        if (h == null) {
+            h = collectHierarchy(type);
+            // racing threads compute equal arrays, any of them can win
+            hierarchies.putIfAbsent(type, h);
+        }
+        return h;
+    }
+
+    /**
+     * Lists the class, then its superclasses, then all interfaces, each only once.
+     */
+    static Class<?>[] collectHierarchy(Class<?> type) {
+        Set<Class<?>> result = new LinkedHashSet<Class<?>>();
+        List<Class<?>> interfaces = new ArrayList<Class<?>>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            result.add(c);
+            for (Class<?> i : c.getInterfaces()) {
+                interfaces.add(i);
+            }
+        }
+        for (int i = 0; i < interfaces.size(); i++) {
+            Class<?> itf = interfaces.get(i);
+            if (result.add(itf)) {
+                for (Class<?> sup : itf.getInterfaces()) {
+                    interfaces.add(sup);
+                }
+            }
+        }
+        return result.toArray(new Class<?>[0]);
+    }
+
+    /**
+     * The subject of one type or topic, with its posts serialized: a post arriving while another
+     * thread emits is queued and emitted by that thread. Observers are subscribed through an
+     * {@link IsolatingObserver}, so one that throws can't keep the event from the others.
+     */
+    static final class Channel extends Observable<Object> {
+        final PublishSubject<Object> subject;
+
+        /** Guarded by this. */
+        boolean emitting;
+
+        /** The events posted while emitting, guarded by this. */
+        List<Object> queue;
+
+        Channel() {
+            this.subject = PublishSubject.create();
+        }
+
+        @Override
+        protected void subscribeActual(Observer<? super Object> observer) {
+            subject.subscribe(new IsolatingObserver<Object>(observer));
+        }
+
+        void post(Object event) {
+            if (!subject.hasObservers()) {
+                return;
+            }
+            synchronized (this) {
+                if (emitting) {
+                    List<Object> q = queue;
+                    if (q == null) {
+                        q = new ArrayList<Object>();
+                        queue = q;
+                    }
+                    q.add(event);
+                    return;
+                }
+                emitting = true;
+            }
+            try {
+                subject.onNext(event);
+            } finally {
+                drain();
+            }
+        }
+
+        /**
+         * Emits the events queued meanwhile, then leaves the emitting state.
+         */
+        void drain() {
+            for (;;) {
+                List<Object> q;
+                synchronized (this) {
+                    q = queue;
+                    if (q == null) {
+                        emitting = false;
+                        return;
+                    }
+                    queue = null;
+                }
+                for (Object event : q) {
+                    subject.onNext(event);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> Observable<T> events() {
+            // only instances of the channel's type are posted to it
+            return (Observable<T>) (Observable<?>) this;
+        }
+    }
+
+    /**
+     * Routes the errors an observer throws from onNext to {@link RxJavaPlugins#onError(Throwable)}
+     * instead of into the channel; the observer stays subscribed.
+     *
+     * @param <T> the value type
+     */
+    static final class IsolatingObserver<T> implements Observer<T> {
+        final Observer<? super T> actual;
+
+        IsolatingObserver(Observer<? super T> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            actual.onSubscribe(d);
+        }
+
+        @Override
+        public void onNext(T t) {
+            try {
+                actual.onNext(t);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                RxJavaPlugins.onError(ex);
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            actual.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            actual.onComplete();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package demo;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * Measures heap allocation from the {@link Runtime} memory figures, so the demos run on Android
+ * as well as on any JVM.
+ * <p>
+ * A measurement only counts if no garbage collection ran in between, which a weakly reachable
+ * canary tells; the measured work should therefore fit into the young generation. The figures
+ * have the granularity of the allocation buffers and include what other threads allocate
+ * meanwhile, so measure enough operations to make that small; the median of a few runs is taken.
+ */
+final class AllocationMeter {
+
+    static final int MEASUREMENTS = 5;
+
+    static final int ATTEMPTS = 3;
+
+    private AllocationMeter() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    /**
+     * Returns the median bytes allocated while running the given work, or -1 if the attempts
+     * were interrupted by garbage collections too often.
+     *
+     * @param work the work to measure, run once per attempt
+     * @return the allocated bytes or -1
+     */
+    static long allocatedBytes(Runnable work) {
+        long[] bytes = new long[MEASUREMENTS];
+        for (int i = 0; i < MEASUREMENTS; i++) {
+            bytes[i] = measure(work);
+            if (bytes[i] < 0L) {
+                return -1L;
+            }
+        }
+        Arrays.sort(bytes);
+        return bytes[MEASUREMENTS / 2];
+    }
+
+    /**
+     * Returns the median bytes allocated per operation, halving the number of operations until
+     * the measurements fit between garbage collections, or -1 if not even a single one does.
+     *
+     * @param work       the work to measure
+     * @param operations the number of operations to start with
+     * @return the allocated bytes per operation or -1
+     */
+    static double bytesPerOperation(final Operations work, int operations) {
+        for (int n = operations; n > 0; n >>= 1) {
+            final int count = n;
+            long bytes = allocatedBytes(new Runnable() {
+                @Override
+                public void run() {
+                    work.run(count);
+                }
+            });
+            if (bytes >= 0L) {
+                return (double) bytes / count;
+            }
+        }
+        return -1d;
+    }
+
+    static long measure(Runnable work) {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            System.gc();
+            WeakReference<Object> canary = new WeakReference<Object>(new Object());
+            long before = runtime.totalMemory() - runtime.freeMemory();
+            work.run();
+            long after = runtime.totalMemory() - runtime.freeMemory();
+            if (canary.get() != null) {
+                return after - before;
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Work made of a given number of operations.
+     */
+    interface Operations {
+        void run(int count);
+    }
+}
@@ -0,0 +1,165 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.android.schedulers.BatchingWorker;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the batching worker on the JVM against a fake looper (a single-thread executor) and checks
+ * that a burst of updates is delivered completely and in order, in fewer looper messages than
+ * updates; exits with status 1 otherwise.
+ */
+public class BatchedDeliveryBenchmark {
+
+    static final int BURST = 500;
+
+    /** The time each update spends on the looper; the burst takes ten times the turn budget. */
+    static final long UPDATE_NANOS = 20000L;
+
+    public static void main(String[] args) throws Exception {
+        boolean ok = checkBurstBeforeTurn() & checkConcurrentBurst();
+        System.out.println(ok ? "batched delivery checks passed" : "batched delivery checks FAILED");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Schedules the whole burst while the looper is busy: it has to become a single message,
+     * which then yields the looper whenever the budget is used up.
+     */
+    static boolean checkBurstBeforeTurn() throws InterruptedException {
+        ScheduledExecutorService looper = Executors.newSingleThreadScheduledExecutor();
+        final FakeLooperWorker worker = new FakeLooperWorker(looper, 1, TimeUnit.MILLISECONDS);
+        final CountDownLatch busy = new CountDownLatch(1);
+        looper.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    busy.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        Updates updates = new Updates();
+        for (int i = 0; i < BURST; i++) {
+            worker.schedule(updates.update(i));
+        }
+        int turnsBeforeLooper = worker.turns.get();
+        busy.countDown();
+        boolean completed = updates.done.await(10, TimeUnit.SECONDS);
+        int turns = worker.turns.get();
+
+        worker.dispose();
+        looper.shutdown();
+        return report("burst before the next turn", completed && updates.outOfOrder.get() == 0
+                        && turnsBeforeLooper == 1 && turns > 1 && turns < BURST,
+                updates, turns + " looper messages, " + turnsBeforeLooper + " posted during the burst");
+    }
+
+    /**
+     * Schedules the burst from a producer thread while the looper drains.
+     */
+    static boolean checkConcurrentBurst() throws InterruptedException {
+        ScheduledExecutorService looper = Executors.newSingleThreadScheduledExecutor();
+        final FakeLooperWorker worker = new FakeLooperWorker(looper, 1, TimeUnit.MILLISECONDS);
+        final Updates updates = new Updates();
+
+        // a producer thread bursting list updates, as a background observeOn hop would
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        for (int i = 0; i < BURST; i++) {
+            final int index = i;
+            producer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    worker.schedule(updates.update(index));
+                }
+            });
+        }
+        boolean completed = updates.done.await(10, TimeUnit.SECONDS);
+        int turns = worker.turns.get();
+
+        worker.dispose();
+        producer.shutdown();
+        looper.shutdown();
+        return report("concurrent burst", completed && updates.outOfOrder.get() == 0 && turns <= BURST,
+                updates, turns + " looper messages");
+    }
+
+    static boolean report(String name, boolean ok, Updates updates, String details) {
+        System.out.println((ok ? "ok   " : "FAIL ") + name + ": " + (BURST - updates.done.getCount()) + " of "
+                + BURST + " updates, " + updates.outOfOrder.get() + " out of order, " + details);
+        return ok;
+    }
+
+    static final class Updates {
+        final CountDownLatch done = new CountDownLatch(BURST);
+
+        final AtomicInteger expected = new AtomicInteger();
+
+        final AtomicInteger outOfOrder = new AtomicInteger();
+
+        Runnable update(final int index) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    if (expected.getAndIncrement() != index) {
+                        outOfOrder.incrementAndGet();
+                    }
+                    // some view binding work
+                    long end = System.nanoTime() + UPDATE_NANOS;
+                    while (System.nanoTime() < end) {
+                        // busy
+                    }
+                    done.countDown();
+                }
+            };
+        }
+    }
+
+    static final class FakeLooperWorker extends BatchingWorker {
+        final ScheduledExecutorService looper;
+
+        final AtomicInteger turns = new AtomicInteger();
+
+        FakeLooperWorker(ScheduledExecutorService looper, long budget, TimeUnit unit) {
+            super(budget, unit);
+            this.looper = looper;
+        }
+
+        @Override
+        protected void postTurn() {
+            turns.incrementAndGet();
+            looper.execute(this);
+        }
+
+        @Override
+        protected Disposable postDelayed(Runnable run, long delayMillis) {
+            final ScheduledFuture<?> f = looper.schedule(run, delayMillis, TimeUnit.MILLISECONDS);
+            return new Disposable() {
+                @Override
+                public void dispose() {
+                    f.cancel(false);
+                }
+
+                @Override
+                public boolean isDisposed() {
+                    return f.isDone();
+                }
+            };
+        }
+
+        @Override
+        protected void removeAll() {
+        }
+    }
+}
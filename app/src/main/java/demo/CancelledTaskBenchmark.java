@@ -0,0 +1,74 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.internal.schedulers.NewThreadWorker;
+import com.alipay.mobile.social.rxjava.internal.schedulers.RxThreadFactory;
+import com.alipay.mobile.social.rxjava.internal.schedulers.SchedulerPoolFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates heavy debounce cancellation: every "keystroke" schedules a delayed task and
+ * cancels the previous one. Reports the cancelled tasks still retained by the executor, the
+ * heap growth and the wakeups spent by the global purge thread.
+ * <p>
+ * Run once with the defaults and once with {@code -Drx2.remove-on-cancel=true}.
+ */
+public class CancelledTaskBenchmark {
+
+    static final int KEYSTROKES = 500000;
+
+    public static void main(String[] args) throws Exception {
+        NewThreadWorker worker = new NewThreadWorker(new RxThreadFactory("Debounce"));
+        Runnable action = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        int maxRetained = 0;
+
+        Disposable previous = null;
+        for (int i = 0; i < KEYSTROKES; i++) {
+            if (previous != null) {
+                previous.dispose();
+            }
+            previous = worker.schedule(action, 30, TimeUnit.SECONDS);
+            if ((i & 1023) == 0) {
+                maxRetained = Math.max(maxRetained, worker.queueSize());
+            }
+        }
+        int retained = worker.queueSize();
+        long heapAfter = usedHeap();
+
+        // let the purge thread, if any, run for a few periods
+        long idleSeconds = 3;
+        Thread.sleep(TimeUnit.SECONDS.toMillis(idleSeconds));
+        long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+
+        boolean purging = false;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith("RxSchedulerPurge")) {
+                purging = true;
+            }
+        }
+
+        System.out.println("remove-on-cancel: " + SchedulerPoolFactory.REMOVE_ON_CANCEL);
+        System.out.println("retained right after burst: " + retained + " (max observed " + maxRetained + ")");
+        System.out.println("retained after idling:      " + worker.queueSize());
+        System.out.println("heap growth:                " + (heapAfter - heapBefore) / 1024 + " KiB");
+        System.out.println("purge thread running:       " + purging);
+        System.out.println("purge wakeups (approx.):    "
+                + (purging ? elapsedSeconds / SchedulerPoolFactory.PURGE_PERIOD_SECONDS : 0));
+
+        worker.dispose();
+    }
+
+    static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
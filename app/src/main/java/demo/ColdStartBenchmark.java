@@ -0,0 +1,53 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.Observable;
+import com.alipay.mobile.social.rxjava.ObservableEmitter;
+import com.alipay.mobile.social.rxjava.ObservableOnSubscribe;
+import com.alipay.mobile.social.rxjava.functions.Consumer;
+import com.alipay.mobile.social.rxjava.schedulers.Schedulers;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from the first touch of the Rx classes to the first emission of an
+ * {@code io()} to {@code computation()} pipeline, and which threads exist at that point.
+ * <p>
+ * Only the first run in a JVM is a cold start, so run it as a fresh process each time.
+ */
+public class ColdStartBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threadsBefore = Thread.activeCount();
+        final long start = System.nanoTime();
+        final long[] firstEmission = new long[1];
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        Observable.create(new ObservableOnSubscribe<Integer>() {
+            @Override
+            public void subscribe(ObservableEmitter<Integer> emitter) throws Exception {
+                emitter.onNext(1);
+                emitter.onComplete();
+            }
+        })
+                .subscribeOn(Schedulers.io())
+                .observeOn(Schedulers.computation())
+                .subscribe(new Consumer<Integer>() {
+                    @Override
+                    public void accept(Integer v) throws Exception {
+                        firstEmission[0] = System.nanoTime() - start;
+                        latch.countDown();
+                    }
+                });
+
+        latch.await(10, TimeUnit.SECONDS);
+
+        System.out.println("time-to-first-emission: " + TimeUnit.NANOSECONDS.toMicros(firstEmission[0]) + " us");
+        System.out.println("threads started: " + (Thread.activeCount() - threadsBefore));
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith("Rx")) {
+                System.out.println("  " + t.getName());
+            }
+        }
+    }
+}
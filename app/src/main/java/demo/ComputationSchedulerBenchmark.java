@@ -0,0 +1,91 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ComputationScheduler;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the schedule-to-run latency of short tasks on the computation scheduler while
+ * a few workers keep their event loops busy with long tasks.
+ * <p>
+ * Run once with the default policy and once with {@code -Drx2.computation-selection=least-loaded}
+ * to compare the tail latencies.
+ */
+public class ComputationSchedulerBenchmark {
+
+    static final int SHORT_TASKS = 20000;
+
+    static final long LONG_TASK_MILLIS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Scheduler scheduler = new ComputationScheduler();
+        int cores = Runtime.getRuntime().availableProcessors();
+        int hot = Math.max(1, cores / 2);
+
+        // skew: half of the event loops are kept saturated by long tasks
+        Scheduler.Worker[] hotWorkers = new Scheduler.Worker[hot];
+        for (int i = 0; i < hot; i++) {
+            hotWorkers[i] = scheduler.createWorker();
+            for (int j = 0; j < 1000; j++) {
+                hotWorkers[i].schedule(new Spin(LONG_TASK_MILLIS));
+            }
+        }
+
+        final long[] latencies = new long[SHORT_TASKS];
+        final CountDownLatch done = new CountDownLatch(SHORT_TASKS);
+        for (int i = 0; i < SHORT_TASKS; i++) {
+            final int index = i;
+            final Scheduler.Worker w = scheduler.createWorker();
+            final long start = System.nanoTime();
+            w.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    latencies[index] = System.nanoTime() - start;
+                    w.dispose();
+                    done.countDown();
+                }
+            });
+            if ((i & 63) == 0) {
+                Thread.sleep(1);
+            }
+        }
+        done.await(5, TimeUnit.MINUTES);
+
+        for (Scheduler.Worker w : hotWorkers) {
+            w.dispose();
+        }
+        scheduler.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.println("selection: " + System.getProperty("rx2.computation-selection", "round-robin")
+                + ", cores: " + cores + ", hot loops: " + hot);
+        System.out.println("p50   " + micros(latencies, 0.50) + " us");
+        System.out.println("p99   " + micros(latencies, 0.99) + " us");
+        System.out.println("p99.9 " + micros(latencies, 0.999) + " us");
+        System.out.println("max   " + TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length - 1]) + " us");
+    }
+
+    static long micros(long[] sorted, double percentile) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)));
+        return TimeUnit.NANOSECONDS.toMicros(sorted[index]);
+    }
+
+    static final class Spin implements Runnable {
+        final long millis;
+
+        Spin(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public void run() {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+            while (System.nanoTime() < end) {
+                // busy
+            }
+        }
+    }
+}
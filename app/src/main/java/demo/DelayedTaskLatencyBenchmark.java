@@ -0,0 +1,89 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.internal.schedulers.HashedWheelTimer;
+import com.alipay.mobile.social.rxjava.internal.schedulers.RxThreadFactory;
+import com.alipay.mobile.social.rxjava.schedulers.DelayTimer;
+import com.alipay.mobile.social.rxjava.schedulers.Schedulers;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures how late delayed tasks of an executor-backed scheduler run while {@code single()}
+ * is kept busy with unrelated long tasks, for different timers.
+ */
+public class DelayedTaskLatencyBenchmark {
+
+    static final int TASKS = 2000;
+
+    static final long DELAY_MILLIS = 2;
+
+    public static void main(String[] args) throws Exception {
+        final AtomicBoolean busy = new AtomicBoolean(true);
+        // unrelated single() work: 5ms tasks back to back
+        Schedulers.single().scheduleDirect(new Runnable() {
+            @Override
+            public void run() {
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5);
+                while (System.nanoTime() < end) {
+                    // busy
+                }
+                if (busy.get()) {
+                    Schedulers.single().scheduleDirect(this);
+                }
+            }
+        });
+
+        run("single() as timer", new DelayTimer() {
+            @Override
+            public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+                return Schedulers.single().scheduleDirect(run, delay, unit);
+            }
+        });
+        run("default timer", null);
+        run("wheel timer", new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 512,
+                new RxThreadFactory("BenchmarkWheelTimer", Thread.MAX_PRIORITY, true)));
+
+        busy.set(false);
+    }
+
+    static void run(String name, DelayTimer timer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Scheduler scheduler = timer != null ? Schedulers.from(executor, timer) : Schedulers.from(executor);
+        Scheduler.Worker worker = scheduler.createWorker();
+
+        final long[] lateness = new long[TASKS];
+        final CountDownLatch done = new CountDownLatch(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            final int index = i;
+            final long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DELAY_MILLIS);
+            worker.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    lateness[index] = System.nanoTime() - due;
+                    done.countDown();
+                }
+            }, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            Thread.sleep(0, 500000);
+        }
+        done.await(1, TimeUnit.MINUTES);
+        worker.dispose();
+        executor.shutdownNow();
+
+        Arrays.sort(lateness);
+        System.out.println(name + ": late by p50 " + micros(lateness, 0.50) + " us, p99 " + micros(lateness, 0.99)
+                + " us, p99.9 " + micros(lateness, 0.999) + " us, max "
+                + TimeUnit.NANOSECONDS.toMicros(lateness[lateness.length - 1]) + " us");
+    }
+
+    static long micros(long[] sorted, double percentile) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)));
+        return TimeUnit.NANOSECONDS.toMicros(sorted[index]);
+    }
+}
@@ -0,0 +1,92 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.schedulers.Schedulers;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures the schedule-to-run latency of light workers sharing a small fixed pool with a
+ * worker that is flooded by a fast producer, with and without a per-run budget.
+ */
+public class ExecutorFairnessBenchmark {
+
+    static final int LIGHT_TASKS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        run("unbounded", 0, 0L);
+        run("64 tasks / 500us", 64, 500L);
+    }
+
+    static void run(String name, int maxTasks, long sliceMicros) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        Scheduler scheduler = Schedulers.from(pool, maxTasks, sliceMicros, TimeUnit.MICROSECONDS);
+
+        final Scheduler.Worker hog = scheduler.createWorker();
+        final Runnable spin = new Runnable() {
+            @Override
+            public void run() {
+                long end = System.nanoTime() + 20000L;
+                while (System.nanoTime() < end) {
+                    // busy
+                }
+            }
+        };
+        final AtomicBoolean producing = new AtomicBoolean(true);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (producing.get()) {
+                    for (int i = 0; i < 100; i++) {
+                        hog.schedule(spin);
+                    }
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+        Thread.sleep(100);
+
+        final long[] latencies = new long[LIGHT_TASKS];
+        final CountDownLatch done = new CountDownLatch(LIGHT_TASKS);
+        for (int i = 0; i < LIGHT_TASKS; i++) {
+            final int index = i;
+            final Scheduler.Worker w = scheduler.createWorker();
+            final long start = System.nanoTime();
+            w.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    latencies[index] = System.nanoTime() - start;
+                    w.dispose();
+                    done.countDown();
+                }
+            });
+            Thread.sleep(0, 200000);
+        }
+        boolean completed = done.await(10, TimeUnit.SECONDS);
+
+        producing.set(false);
+        producer.join();
+        hog.dispose();
+        pool.shutdownNow();
+
+        if (!completed) {
+            System.out.println(name + ": starved, " + done.getCount() + " of " + LIGHT_TASKS
+                    + " light tasks still waiting after 10 s");
+            return;
+        }
+        Arrays.sort(latencies);
+        System.out.println(name + ": p50 " + micros(latencies, 0.50) + " us, p99 " + micros(latencies, 0.99)
+                + " us, max " + TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length - 1]) + " us");
+    }
+
+    static long micros(long[] sorted, double percentile) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)));
+        return TimeUnit.NANOSECONDS.toMicros(sorted[index]);
+    }
+}
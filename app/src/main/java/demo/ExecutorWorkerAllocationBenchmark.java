@@ -0,0 +1,65 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.internal.schedulers.ExecutorScheduler;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Reports the bytes allocated per {@link ExecutorScheduler.ExecutorWorker} and per {@code schedule()}
+ * on one, measured with {@link AllocationMeter}.
+ * <p>
+ * The executor runs the drain loop inline, so everything the schedule-and-run path allocates is
+ * allocated on the calling thread. Tasks are scheduled in bursts so the queue actually holds several of
+ * them at a time.
+ */
+public class ExecutorWorkerAllocationBenchmark {
+
+    static final int WORKERS = 100000;
+
+    static final int BURST = 64;
+
+    static final int ROUNDS = 20000;
+
+    public static void main(String[] args) {
+        final Runnable[] drain = new Runnable[1];
+        final Executor deferred = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                drain[0] = command;
+            }
+        };
+        final Runnable action = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        final Scheduler.Worker[] workers = new Scheduler.Worker[WORKERS];
+        final Scheduler.Worker w = new ExecutorScheduler.ExecutorWorker(deferred);
+
+        for (int round = 0; round < 3; round++) {
+            long perWorker = AllocationMeter.allocatedBytes(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < WORKERS; i++) {
+                        workers[i] = new ExecutorScheduler.ExecutorWorker(deferred);
+                    }
+                }
+            });
+            long perSchedule = AllocationMeter.allocatedBytes(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < ROUNDS; i++) {
+                        for (int j = 0; j < BURST; j++) {
+                            w.schedule(action);
+                        }
+                        drain[0].run();
+                    }
+                }
+            });
+            System.out.println("bytes per worker: " + (double) perWorker / WORKERS
+                    + ", bytes per schedule(): " + (double) perSchedule / ((long) ROUNDS * BURST));
+        }
+        w.dispose();
+    }
+}
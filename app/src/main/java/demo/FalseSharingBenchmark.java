@@ -0,0 +1,98 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.internal.queue.SpscLinkedArrayQueue;
+import com.alipay.mobile.social.rxjava.internal.util.PaddedAtomicLong;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Shows the effect of the padded counters: a producer and a consumer thread each update their
+ * own index, once with both indexes on the same cache line and once with {@link PaddedAtomicLong}s,
+ * followed by the producer/consumer throughput of the (padded) {@link SpscLinkedArrayQueue}.
+ * <p>
+ * The difference only shows with the two threads on different cores; run it on a multi-core machine.
+ */
+public class FalseSharingBenchmark {
+
+    static final long UPDATES = 100000000L;
+
+    static final int ITEMS = 20000000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+        for (int r = 0; r < 3; r++) {
+            final AtomicLongArray adjacent = new AtomicLongArray(2);
+            long shared = twoWriters(new Runnable() {
+                @Override
+                public void run() {
+                    for (long i = 0; i < UPDATES; i++) {
+                        adjacent.lazySet(0, i);
+                    }
+                }
+            }, new Runnable() {
+                @Override
+                public void run() {
+                    for (long i = 0; i < UPDATES; i++) {
+                        adjacent.lazySet(1, i);
+                    }
+                }
+            });
+            final AtomicLong producer = new PaddedAtomicLong();
+            final AtomicLong consumer = new PaddedAtomicLong();
+            long padded = twoWriters(new Runnable() {
+                @Override
+                public void run() {
+                    for (long i = 0; i < UPDATES; i++) {
+                        producer.lazySet(i);
+                    }
+                }
+            }, new Runnable() {
+                @Override
+                public void run() {
+                    for (long i = 0; i < UPDATES; i++) {
+                        consumer.lazySet(i);
+                    }
+                }
+            });
+            System.out.println("indexes on one line: " + TimeUnit.NANOSECONDS.toMillis(shared) + " ms, padded: "
+                    + TimeUnit.NANOSECONDS.toMillis(padded) + " ms");
+            System.out.println("SpscLinkedArrayQueue: " + queueThroughput() + " kops/s");
+        }
+    }
+
+    static long twoWriters(Runnable a, Runnable b) throws Exception {
+        Thread ta = new Thread(a);
+        Thread tb = new Thread(b);
+        long start = System.nanoTime();
+        ta.start();
+        tb.start();
+        ta.join();
+        tb.join();
+        return System.nanoTime() - start;
+    }
+
+    static long queueThroughput() throws Exception {
+        final SpscLinkedArrayQueue<Integer> q = new SpscLinkedArrayQueue<Integer>(1024);
+        final Integer item = 1;
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < ITEMS; i++) {
+                    q.offer(item);
+                }
+            }
+        });
+        long start = System.nanoTime();
+        producer.start();
+        for (int i = 0; i < ITEMS; i++) {
+            while (q.poll() == null) {
+                Thread.yield();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        producer.join();
+        return ITEMS * 1000L / Math.max(1L, TimeUnit.NANOSECONDS.toMicros(elapsed));
+    }
+}
@@ -0,0 +1,145 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.Observer;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.subjects.PublishSubject;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures subscription churn (dispose a random subscriber, subscribe a new one) and
+ * {@code onNext} fan-out of a {@link PublishSubject} with 10, 1k and 10k subscribers, then the
+ * churn throughput of {@value #THREADS} threads working on the same subject at once.
+ * The churn allocation is measured with {@link AllocationMeter}; on HotSpot, run it with a
+ * young generation of a few hundred megabytes, e.g. {@code -Xmn512m}.
+ */
+public class PublishSubjectBenchmark {
+
+    static final int CHURN = 200000;
+
+    static final int DELIVERIES = 20000000;
+
+    static final int THREADS = 4;
+
+    public static void main(String[] args) throws InterruptedException {
+        // the first round only warms up the JIT
+        for (int round = 0; round < 3; round++) {
+            for (int n : new int[] { 10, 1000, 10000 }) {
+                final PublishSubject<Integer> subject = PublishSubject.create();
+                final Sink[] sinks = new Sink[n];
+                for (int i = 0; i < n; i++) {
+                    sinks[i] = new Sink();
+                    subject.subscribe(sinks[i]);
+                }
+
+                final Random random = new Random(n);
+                long start = System.nanoTime();
+                churn(subject, sinks, random, CHURN);
+                long churnNanos = System.nanoTime() - start;
+                double bytes = round == 0 ? 0d : AllocationMeter.bytesPerOperation(new AllocationMeter.Operations() {
+                    @Override
+                    public void run(int count) {
+                        churn(subject, sinks, random, count);
+                    }
+                }, CHURN);
+
+                Integer item = 1;
+                int items = DELIVERIES / n;
+                start = System.nanoTime();
+                for (int i = 0; i < items; i++) {
+                    subject.onNext(item);
+                }
+                long emitNanos = System.nanoTime() - start;
+
+                if (round == 0) {
+                    continue;
+                }
+                System.out.println(n + " subscribers: churn " + CHURN * 1000L / micros(churnNanos)
+                        + " kops/s, " + (bytes < 0d ? "n/a" : (long) bytes + " bytes/op") + "; onNext "
+                        + (long) items * n * 1000L / micros(emitNanos) + " k deliveries/s");
+            }
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int n : new int[] { 10, 1000, 10000 }) {
+                long nanos = concurrentChurn(n);
+                if (round != 0) {
+                    System.out.println(n + " subscribers, " + THREADS + " threads: churn "
+                            + CHURN * 1000L / micros(nanos) + " kops/s");
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs {@link #CHURN} churn operations split over {@link #THREADS} threads, each on its own
+     * share of the subscribers, and returns the elapsed time.
+     */
+    static long concurrentChurn(int n) throws InterruptedException {
+        final PublishSubject<Integer> subject = PublishSubject.create();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final Sink[] sinks = new Sink[Math.max(1, n / THREADS)];
+            for (int i = 0; i < sinks.length; i++) {
+                sinks[i] = new Sink();
+                subject.subscribe(sinks[i]);
+            }
+            final Random random = new Random(t);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    churn(subject, sinks, random, CHURN / THREADS);
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    static void churn(PublishSubject<Integer> subject, Sink[] sinks, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            int victim = random.nextInt(sinks.length);
+            sinks[victim].d.dispose();
+            sinks[victim] = new Sink();
+            subject.subscribe(sinks[victim]);
+        }
+    }
+
+    static long micros(long nanos) {
+        return Math.max(1L, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    static final class Sink implements Observer<Integer> {
+        Disposable d;
+
+        long count;
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            this.d = d;
+        }
+
+        @Override
+        public void onNext(Integer value) {
+            count++;
+        }
+
+        @Override
+        public void onError(Throwable e) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.Observable;
+import com.alipay.mobile.social.rxjava.Observer;
+import com.alipay.mobile.social.rxjava.disposables.Disposable;
+import com.alipay.mobile.social.rxjava.subjects.RxBus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that an {@link RxBus} channel keeps delivering every event to its other observers when an
+ * observer subscribed before them throws, and that the errors reach RxJavaPlugins, both for a
+ * single poster and for concurrent posters whose events get queued; exits with status 1 otherwise.
+ */
+public class RxBusCheck {
+
+    static final int POSTS = 100000;
+
+    /** Counts the errors RxJavaPlugins hands to the uncaught exception handler. */
+    static final AtomicInteger ROUTED = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread t, Throwable e) {
+                ROUTED.getAndIncrement();
+            }
+        });
+        RxBus bus = RxBus.create();
+        boolean ok = check("single poster", bus, bus.ofType(Integer.class), null, 1, 10, 2)
+                & check("concurrent posters", bus, bus.ofType(Integer.class), null, 2, POSTS, 1000)
+                & check("topic, concurrent posters", bus, bus.ofTopic("numbers", Integer.class), "numbers",
+                        2, POSTS, 1000);
+        System.out.println(ok ? "RxBus checks passed" : "RxBus checks FAILED");
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * Subscribes an observer throwing on every {@code failEvery}-th event, then a healthy one,
+     * and posts {@code posts} events from each of {@code posters} threads.
+     */
+    static boolean check(String name, final RxBus bus, Observable<Integer> events, final String topic,
+                         int posters, final int posts, int failEvery) throws InterruptedException {
+        Counter failing = new Counter(failEvery);
+        Counter healthy = new Counter(0);
+        events.subscribe(failing);
+        events.subscribe(healthy);
+        ROUTED.set(0);
+
+        final CountDownLatch done = new CountDownLatch(posters);
+        final AtomicInteger thrown = new AtomicInteger();
+        for (int t = 0; t < posters; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 1; i <= posts; i++) {
+                        try {
+                            if (topic == null) {
+                                bus.post(i);
+                            } else {
+                                bus.post(topic, i);
+                            }
+                        } catch (IllegalStateException ex) {
+                            thrown.getAndIncrement();
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        failing.d.dispose();
+        healthy.d.dispose();
+
+        int total = posters * posts;
+        boolean ok = healthy.count.get() == total && failing.count.get() == total
+                && ROUTED.get() == total / failEvery && thrown.get() == 0;
+        System.out.println((ok ? "ok   " : "FAIL ") + name + ": " + healthy.count.get() + " of " + total
+                + " delivered after the failing observer, " + ROUTED.get() + " of " + total / failEvery
+                + " errors routed to RxJavaPlugins, " + thrown.get() + " thrown at the posters");
+        return ok;
+    }
+
+    /**
+     * Counts its events and throws on every {@code failEvery}-th one, never if zero.
+     */
+    static final class Counter implements Observer<Integer> {
+        final int failEvery;
+
+        final AtomicInteger count = new AtomicInteger();
+
+        Disposable d;
+
+        Counter(int failEvery) {
+            this.failEvery = failEvery == 0 ? Integer.MAX_VALUE : failEvery;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            this.d = d;
+        }
+
+        @Override
+        public void onNext(Integer value) {
+            if (count.incrementAndGet() % failEvery == 0) {
+                throw new IllegalStateException("failing observer, event " + value);
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.Observable;
+import com.alipay.mobile.social.rxjava.ObservableEmitter;
+import com.alipay.mobile.social.rxjava.ObservableOnSubscribe;
+import com.alipay.mobile.social.rxjava.functions.Consumer;
+import com.alipay.mobile.social.rxjava.internal.fuseable.SimplePlainQueue;
+import com.alipay.mobile.social.rxjava.internal.queue.SpscArrayQueue;
+import com.alipay.mobile.social.rxjava.internal.queue.SpscLinkedArrayQueue;
+import com.alipay.mobile.social.rxjava.schedulers.Schedulers;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the throughput of the bounded {@link SpscArrayQueue} with the linked
+ * {@link SpscLinkedArrayQueue}, first as a raw producer/consumer hand-off and then behind
+ * {@code observeOn} with a producer that never gets more than a buffer ahead.
+ */
+public class SpscQueueBenchmark {
+
+    static final int ITEMS = 10000000;
+
+    static final int CAPACITY = 128;
+
+    static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        for (int r = 0; r < ROUNDS; r++) {
+            report("raw, linked ", queueHandOff(new SpscLinkedArrayQueue<Integer>(CAPACITY)));
+            report("raw, bounded", queueHandOff(new SpscArrayQueue<Integer>(CAPACITY)));
+            report("observeOn, linked ", observeOn(false));
+            report("observeOn, bounded", observeOn(true));
+        }
+    }
+
+    static void report(String name, long nanos) {
+        System.out.println(name + ": " + (ITEMS * 1000L / Math.max(1L, TimeUnit.NANOSECONDS.toMicros(nanos)))
+                + " kops/s");
+    }
+
+    static long queueHandOff(final SimplePlainQueue<Integer> q) throws Exception {
+        final Integer item = 1;
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < ITEMS; i++) {
+                    while (!q.offer(item)) {
+                        Thread.yield();
+                    }
+                }
+            }
+        });
+        long start = System.nanoTime();
+        producer.start();
+        for (int i = 0; i < ITEMS; i++) {
+            while (q.poll() == null) {
+                Thread.yield();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        producer.join();
+        return elapsed;
+    }
+
+    static long observeOn(boolean bounded) throws Exception {
+        final AtomicLong consumed = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(1);
+        final Integer item = 1;
+        long start = System.nanoTime();
+        Observable.create(new ObservableOnSubscribe<Integer>() {
+            @Override
+            public void subscribe(ObservableEmitter<Integer> emitter) throws Exception {
+                for (int i = 0; i < ITEMS; i++) {
+                    // stay within the bounded buffer: wait for the consumer when a full buffer ahead
+                    while (i - consumed.get() >= CAPACITY) {
+                        Thread.yield();
+                    }
+                    emitter.onNext(item);
+                }
+                emitter.onComplete();
+            }
+        })
+                .subscribeOn(Schedulers.io())
+                .observeOn(Schedulers.computation(), false, CAPACITY, bounded)
+                .subscribe(new Consumer<Integer>() {
+                    @Override
+                    public void accept(Integer v) throws Exception {
+                        if (consumed.incrementAndGet() == ITEMS) {
+                            done.countDown();
+                        }
+                    }
+                });
+        done.await(5, TimeUnit.MINUTES);
+        return System.nanoTime() - start;
+    }
+}
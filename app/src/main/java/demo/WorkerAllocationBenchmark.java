@@ -0,0 +1,57 @@
+package demo;
+
+import com.alipay.mobile.social.rxjava.Scheduler;
+import com.alipay.mobile.social.rxjava.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the bytes allocated per worker lifecycle, the way an {@code observeOn} subscription
+ * uses a worker: create it, schedule tasks, dispose it.
+ * <p>
+ * The tasks are delayed far into the future so they are still tracked by the worker when
+ * it's disposed. Allocation is measured with {@link AllocationMeter}; on HotSpot, run it with
+ * a young generation of a few hundred megabytes, e.g. {@code -Xmn512m}.
+ */
+public class WorkerAllocationBenchmark {
+
+    static final int WARMUP = 200000;
+
+    static final int ROUNDS = 200000;
+
+    public static void main(String[] args) throws Exception {
+        final Runnable action = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+
+        String[] names = { "computation", "io" };
+        Scheduler[] schedulers = { Schedulers.computation(), Schedulers.io() };
+        for (int s = 0; s < schedulers.length; s++) {
+            final Scheduler scheduler = schedulers[s];
+            for (int tasks = 0; tasks <= 2; tasks++) {
+                final int n = tasks;
+                run(scheduler, action, n, WARMUP);
+                long bytes = AllocationMeter.allocatedBytes(new Runnable() {
+                    @Override
+                    public void run() {
+                        WorkerAllocationBenchmark.run(scheduler, action, n, ROUNDS);
+                    }
+                });
+                System.out.println(names[s] + ", " + tasks + " pending task(s): "
+                        + (bytes < 0L ? "n/a" : bytes / ROUNDS + " bytes/op"));
+            }
+        }
+    }
+
+    static void run(Scheduler scheduler, Runnable action, int tasks, int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            Scheduler.Worker w = scheduler.createWorker();
+            for (int j = 0; j < tasks; j++) {
+                w.schedule(action, 1, TimeUnit.HOURS);
+            }
+            w.dispose();
+        }
+    }
+}